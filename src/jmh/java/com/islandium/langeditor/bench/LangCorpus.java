@@ -0,0 +1,95 @@
+package com.islandium.langeditor.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic .lang files for the benchmarks.
+ * Keys are dotted namespaces and values mix plain text, color tags, \n and placeholders,
+ * like the files shipped by mods.
+ */
+public final class LangCorpus {
+
+    private static final String[] NAMESPACES = {"items", "blocks", "ui", "npc", "quests", "commands", "server"};
+    private static final String[] GROUPS = {"sword", "shield", "inventory", "armor", "potion", "chest", "menu", "shop"};
+    private static final String[] FIELDS = {"name", "description", "tooltip", "title", "lore"};
+    private static final String[] WORDS = {
+            "Epee", "Bouclier", "Inventaire", "Annuler", "Oui", "Non", "fer", "or", "diamant",
+            "magique", "ancienne", "du", "de", "la", "le", "Yes", "Cancel", "Open", "Close", "Sword"
+    };
+    private static final String[] COLORS = {"#ff5555", "#4ade80", "#ffd700", "#60a5fa", "#c084fc"};
+
+    private LangCorpus() {}
+
+    /**
+     * Writes a .lang file with the given number of entries and returns its path.
+     */
+    public static Path write(Path directory, String fileName, int entries, long seed) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName);
+        Random random = new Random(seed);
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# Synthetic corpus (" + entries + " entries)\n\n");
+            for (int i = 0; i < entries; i++) {
+                if (i % 50 == 0) {
+                    writer.write("\n# Section " + (i / 50) + "\n");
+                }
+                writer.write(key(i));
+                writer.write('=');
+                writer.write(value(random));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Returns the key of the n-th generated entry.
+     */
+    public static String key(int n) {
+        return NAMESPACES[n % NAMESPACES.length] + "."
+                + GROUPS[(n / NAMESPACES.length) % GROUPS.length] + (n / 64) + "."
+                + FIELDS[n % FIELDS.length];
+    }
+
+    /**
+     * Returns a random value using the generator's markup mix.
+     */
+    public static String value(Random random) {
+        StringBuilder value = new StringBuilder();
+        int words = 1 + random.nextInt(8);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                value.append(random.nextInt(10) == 0 ? "\\n" : " ");
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            switch (random.nextInt(8)) {
+                case 0 -> value.append("<color is=\"").append(COLORS[random.nextInt(COLORS.length)])
+                        .append("\">").append(word).append("</color>");
+                case 1 -> value.append("<b>").append(word).append("</b>");
+                case 2 -> value.append("{").append(w).append("}");
+                default -> value.append(word);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Deletes a generated directory and its files.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (var stream = Files.walk(directory)) {
+            for (Path path : stream.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
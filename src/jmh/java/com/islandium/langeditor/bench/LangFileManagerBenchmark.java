@@ -0,0 +1,98 @@
+package com.islandium.langeditor.bench;
+
+import com.islandium.langeditor.index.LangIndexSnapshot;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.query.LangQuery;
+import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.service.ResultCursor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the LangFileManager operations on synthetic files of 1k to 500k entries.
+ *
+ * Run with: ./gradlew :islandium-lang:jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class LangFileManagerBenchmark {
+
+    @Param({"1000", "10000", "100000", "500000"})
+    public int entries;
+
+    private Path directory;
+    private Path file;
+    private LangFileManager manager;
+    private String[] keys;
+    private int nextKey;
+
+    @State(Scope.Thread)
+    public static class Query {
+        @Param({"sword", "Epee de fer", "zz"})
+        public String text;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("langbench");
+        file = LangCorpus.write(directory, "server.lang", entries, 42L);
+        manager = LangFileManager.get();
+        manager.loadFile(file.toString());
+
+        keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = LangCorpus.key((int) ((long) i * entries / keys.length));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        LangCorpus.delete(directory);
+    }
+
+    @Benchmark
+    public boolean loadFileCold() throws IOException {
+        Files.deleteIfExists(LangIndexSnapshot.sidecarFor(file));
+        return manager.loadFile(file.toString());
+    }
+
+    @Benchmark
+    public boolean loadFileWarm() {
+        return manager.loadFile(file.toString());
+    }
+
+    @Benchmark
+    public List<LangEntry> search(Query query) {
+        return manager.search(query.text);
+    }
+
+    @Benchmark
+    public List<LangEntry> searchFirstPage(Query query) {
+        ResultCursor cursor = manager.cursor(LangQuery.parse(query.text));
+        cursor.count();
+        return cursor.page(0, 30);
+    }
+
+    @Benchmark
+    public Optional<LangEntry> getEntry() {
+        return manager.getEntry(keys[nextKey++ & (keys.length - 1)]);
+    }
+
+    @Benchmark
+    public void saveFile(Blackhole blackhole) {
+        String key = keys[nextKey++ & (keys.length - 1)];
+        blackhole.consume(manager.updateEntry(key, key, "Valeur " + nextKey));
+        blackhole.consume(manager.saveFile());
+    }
+}
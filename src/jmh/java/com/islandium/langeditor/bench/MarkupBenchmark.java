@@ -0,0 +1,71 @@
+package com.islandium.langeditor.bench;
+
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.util.ColorUtil;
+import com.islandium.langeditor.util.LangMarkup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per-value text helpers used when rendering pages and chat messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarkupBenchmark {
+
+    private static final int VALUES = 256;
+
+    private LangEntry[] entries;
+    private String[] messages;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7L);
+        entries = new LangEntry[VALUES];
+        messages = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            String value = LangCorpus.value(random);
+            entries[i] = new LangEntry(i, LangCorpus.key(i), value);
+            messages[i] = "&aFichier charge: &7" + LangCorpus.key(i) + " &#ffd700(" + i + " entrees)";
+        }
+    }
+
+    private int nextIndex() {
+        return next++ & (VALUES - 1);
+    }
+
+    @Benchmark
+    public Object colorUtilParse() {
+        return ColorUtil.parse(messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public String getPlainValue() {
+        return entries[nextIndex()].getPlainValue();
+    }
+
+    @Benchmark
+    public String cleanTags() {
+        return LangMarkup.cleanTags(entries[nextIndex()].getValue());
+    }
+
+    @Benchmark
+    public void previewParsing(Blackhole blackhole) {
+        // Same steps as LangEntryEditorPage.buildPreview
+        for (String line : entries[nextIndex()].getValue().split("\\\\n")) {
+            StringBuilder lineUi = new StringBuilder();
+            lineUi.append("Group { LayoutMode: Left; Anchor: (Height: 24); ");
+            LangMarkup.appendPreviewLine(line, lineUi);
+            lineUi.append(" }");
+            blackhole.consume(lineUi.toString());
+        }
+    }
+}
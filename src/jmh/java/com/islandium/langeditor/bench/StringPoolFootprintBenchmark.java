@@ -0,0 +1,94 @@
+package com.islandium.langeditor.bench;
+
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.util.StringPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap measurement of loaded documents with the StringPool.
+ *
+ * Loads the same corpus as several locales/mods and keeps all their entries alive,
+ * then reports the retained heap and the bytes the pool saved, per loaded entry.
+ * The heap without pooling is roughly retainedBytesPerEntry + savedBytesPerEntry.
+ *
+ * Runs without the document cache, so every iteration reads and pools the files again
+ * and only the entries kept by the benchmark are retained.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlangeditor.documentCache.maxBytes=0"})
+@State(Scope.Benchmark)
+public class StringPoolFootprintBenchmark {
+
+    @Param({"10000", "100000"})
+    public int entries;
+
+    @Param({"4"})
+    public int documents;
+
+    private Path directory;
+    private Path emptyFile;
+    private final List<Path> files = new ArrayList<>();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long retainedBytesPerEntry;
+        public long savedBytesPerEntry;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("langpool");
+        for (int d = 0; d < documents; d++) {
+            // Same keys in every document, values only partially shared
+            files.add(LangCorpus.write(directory.resolve("mod" + d), "server.lang", entries, d % 2));
+        }
+        emptyFile = LangCorpus.write(directory, "empty.lang", 0, 0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        LangCorpus.delete(directory);
+    }
+
+    @Benchmark
+    public List<List<LangEntry>> loadDocuments(Footprint footprint) {
+        StringPool.get().clear();
+        long before = usedHeap();
+
+        List<List<LangEntry>> loaded = new ArrayList<>();
+        for (Path file : files) {
+            LangFileManager.get().loadFile(file.toString());
+            loaded.add(LangFileManager.get().getAllEntries());
+        }
+        // Leave the last document (with no cache it is dropped with its raw lines and index)
+        // so only the entries are measured
+        LangFileManager.get().loadFile(emptyFile.toString());
+
+        long total = (long) entries * documents;
+        footprint.retainedBytesPerEntry = (usedHeap() - before) / total;
+        footprint.savedBytesPerEntry = StringPool.get().getSavedBytes() / total;
+        return loaded;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,248 @@
+package com.islandium.langeditor.loadtest;
+
+import com.islandium.langeditor.bench.LangCorpus;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.ui.pages.LangEditorMainView;
+import com.islandium.langeditor.util.LangMarkup;
+import com.islandium.langeditor.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load test of the editor: N simulated editors run a scripted mix of
+ * search / page / edit / save actions against LangFileManager and the main page logic,
+ * without a Hytale server.
+ *
+ * Usage: ./gradlew :islandium-lang:loadTest --args="--editors 16 --entries 100000 --duration 30"
+ *        (--file server.lang to use a copy of a real file instead of a synthetic one)
+ */
+public class LoadTestHarness {
+
+    enum Action {
+        SEARCH(35), NEXT_PAGE(25), PREV_PAGE(10), EDIT(25), SAVE(5);
+
+        final int weight;
+
+        Action(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final String[] QUERIES = {"sword", "epee", "items.", "Cancel", "inventaire", "fer", "ui.menu", "zz"};
+
+    private final Map<Action, LatencyHistogram> latencies = new EnumMap<>(Action.class);
+    private final Map<Action, LongAdder> uiBytes = new EnumMap<>(Action.class);
+    private final Map<Action, LongAdder> uiCommands = new EnumMap<>(Action.class);
+    private final Map<LangFileManager.UpdateResult, LongAdder> updateResults = new EnumMap<>(LangFileManager.UpdateResult.class);
+    private final List<String> keys = new ArrayList<>();
+
+    private LoadTestHarness() {
+        for (Action action : Action.values()) {
+            latencies.put(action, new LatencyHistogram());
+            uiBytes.put(action, new LongAdder());
+            uiCommands.put(action, new LongAdder());
+        }
+        for (LangFileManager.UpdateResult result : LangFileManager.UpdateResult.values()) {
+            updateResults.put(result, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int editors = 8;
+        int entries = 100_000;
+        int durationSeconds = 20;
+        String sourceFile = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--editors" -> editors = Integer.parseInt(args[i + 1]);
+                case "--entries" -> entries = Integer.parseInt(args[i + 1]);
+                case "--duration" -> durationSeconds = Integer.parseInt(args[i + 1]);
+                case "--file" -> sourceFile = args[i + 1];
+                default -> throw new IllegalArgumentException("Option inconnue: " + args[i]);
+            }
+        }
+
+        Path directory = Files.createTempDirectory("langloadtest");
+        try {
+            // Always work on a copy, saves rewrite the file
+            Path file = directory.resolve("server.lang");
+            if (sourceFile != null) {
+                Files.copy(Paths.get(sourceFile), file);
+            } else {
+                LangCorpus.write(directory, "server.lang", entries, 42L);
+            }
+
+            new LoadTestHarness().run(file, editors, durationSeconds);
+        } finally {
+            LangCorpus.delete(directory);
+        }
+    }
+
+    private void run(Path file, int editors, int durationSeconds) throws InterruptedException {
+        LangFileManager manager = LangFileManager.get();
+        if (!manager.loadFile(file.toString())) {
+            throw new IllegalStateException("Impossible de charger " + file);
+        }
+
+        List<LangEntry> all = manager.getEntriesView();
+        int step = Math.max(1, all.size() / 4096);
+        for (int i = 0; i < all.size(); i += step) {
+            keys.add(all.get(i).getKey());
+        }
+
+        System.out.printf("%d editeurs, %d entrees, %d s%n", editors, manager.getEntryCount(), durationSeconds);
+
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(editors);
+        long begin = System.nanoTime();
+        for (int i = 0; i < editors; i++) {
+            SimulatedPlayer player = new SimulatedPlayer("editor" + i);
+            long seed = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    runEditor(player, new Random(seed), deadline);
+                } finally {
+                    done.countDown();
+                }
+            }, player.getUsername());
+            thread.start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        report(elapsed);
+    }
+
+    private void runEditor(SimulatedPlayer player, Random random, long deadline) {
+        LangFileManager manager = LangFileManager.get();
+        RecordingUiOutput ui = new RecordingUiOutput();
+
+        // Opening the main page
+        LangEditorMainView view = new LangEditorMainView();
+        ui.append("Pages/LangEditor/LangEditorMainPage.ui");
+        view.buildHeader(ui);
+        view.buildResultsList(ui);
+
+        // Entry the editor will open next, with the version read from the main page;
+        // the actions in between stand for the time spent before saving
+        LangEntry nextEntry = pickEntry(manager, random);
+        long nextVersion = nextEntry == null ? -1 : nextEntry.getVersion();
+
+        while (System.nanoTime() < deadline) {
+            Action action = pick(random);
+            ui.reset();
+            long start = System.nanoTime();
+
+            switch (action) {
+                case SEARCH -> {
+                    view.setSearchQuery(QUERIES[random.nextInt(QUERIES.length)]);
+                    view.buildResultsList(ui);
+                }
+                case NEXT_PAGE -> {
+                    view.nextPage();
+                    view.buildResultsList(ui);
+                }
+                case PREV_PAGE -> {
+                    if (view.previousPage()) {
+                        view.buildResultsList(ui);
+                    }
+                }
+                case EDIT -> {
+                    // Entry editor page: form + preview, then save through compareAndUpdate
+                    // with the version read earlier, as LangEntryEditorPage does
+                    LangEntry entry = nextEntry;
+                    long expectedVersion = nextVersion;
+                    nextEntry = pickEntry(manager, random);
+                    nextVersion = nextEntry == null ? -1 : nextEntry.getVersion();
+                    if (entry == null) {
+                        continue;
+                    }
+                    String key = entry.getKey();
+                    String value = entry.getValue() + " " + player.getUsername();
+                    ui.append("Pages/LangEditor/LangEntryEditorPage.ui");
+                    ui.set("#KeyField.Value", key);
+                    ui.set("#ValueField.Value", value);
+                    for (String line : value.split("\\\\n")) {
+                        StringBuilder lineUi = new StringBuilder("Group { LayoutMode: Left; Anchor: (Height: 24); ");
+                        LangMarkup.appendPreviewLine(line, lineUi);
+                        ui.appendInline("#PreviewContent", lineUi.append(" }").toString());
+                    }
+
+                    LangFileManager.UpdateResult result = manager.compareAndUpdate(entry, expectedVersion, key, value);
+                    updateResults.get(result).increment();
+                    switch (result) {
+                        case UPDATED -> player.sendMessage("&aEntree modifiee: " + key);
+                        case CONFLICT -> player.sendMessage("&cCette entree a ete modifiee par un autre editeur!");
+                        case NOT_FOUND -> player.sendMessage("&cCette entree n'existe plus (supprimee ou fichier recharge)!");
+                        case KEY_TAKEN -> player.sendMessage("&cCette cle existe deja!");
+                    }
+                    view = new LangEditorMainView();
+                    ui.append("Pages/LangEditor/LangEditorMainPage.ui");
+                    view.buildHeader(ui);
+                    view.buildResultsList(ui);
+                }
+                case SAVE -> {
+                    if (manager.saveFile()) {
+                        player.sendMessage("&aFichier sauvegarde avec succes!");
+                    }
+                    view.buildHeader(ui);
+                    view.buildResultsList(ui);
+                }
+            }
+
+            latencies.get(action).record(System.nanoTime() - start);
+            uiBytes.get(action).add(ui.getBytes());
+            uiCommands.get(action).add(ui.getCommands());
+        }
+    }
+
+    private LangEntry pickEntry(LangFileManager manager, Random random) {
+        return manager.getEntry(keys.get(random.nextInt(keys.size()))).orElse(null);
+    }
+
+    private static Action pick(Random random) {
+        int roll = random.nextInt(100);
+        for (Action action : Action.values()) {
+            roll -= action.weight;
+            if (roll < 0) {
+                return action;
+            }
+        }
+        return Action.SEARCH;
+    }
+
+    private void report(double elapsedSeconds) {
+        long total = 0;
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %12s %10s%n",
+                "action", "count", "ops/s", "p50 ms", "p99 ms", "max ms", "bytes/op", "cmds/op");
+        for (Action action : Action.values()) {
+            LatencyHistogram histogram = latencies.get(action);
+            long count = histogram.getCount();
+            total += count;
+            System.out.printf("%-10s %10d %10.1f %10.3f %10.3f %10.3f %12d %10d%n",
+                    action.name().toLowerCase(), count, count / elapsedSeconds,
+                    histogram.getPercentileNanos(50) / 1e6,
+                    histogram.getPercentileNanos(99) / 1e6,
+                    histogram.getMaxNanos() / 1e6,
+                    count == 0 ? 0 : uiBytes.get(action).sum() / count,
+                    count == 0 ? 0 : uiCommands.get(action).sum() / count);
+        }
+        System.out.printf("total: %d actions, %.1f actions/s%n", total, total / elapsedSeconds);
+        System.out.printf("edits: %d updated, %d conflicts, %d not found%n",
+                updateResults.get(LangFileManager.UpdateResult.UPDATED).sum(),
+                updateResults.get(LangFileManager.UpdateResult.CONFLICT).sum(),
+                updateResults.get(LangFileManager.UpdateResult.NOT_FOUND).sum());
+    }
+}
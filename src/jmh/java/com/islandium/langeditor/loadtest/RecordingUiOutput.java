@@ -0,0 +1,65 @@
+package com.islandium.langeditor.loadtest;
+
+import com.islandium.langeditor.ui.UiOutput;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stand-in for UICommandBuilder/UIEventBuilder that only measures what a page would send:
+ * number of commands and their size in UTF-8 bytes.
+ */
+public class RecordingUiOutput implements UiOutput {
+
+    private long commands;
+    private long bytes;
+
+    @Override
+    public void set(String selector, String value) {
+        record(selector, value);
+    }
+
+    @Override
+    public void set(String selector, boolean value) {
+        record(selector, value ? "true" : "false");
+    }
+
+    @Override
+    public void clear(String selector) {
+        record(selector, "");
+    }
+
+    @Override
+    public void appendInline(String selector, String ui) {
+        record(selector, ui);
+    }
+
+    @Override
+    public void bindActivating(String selector, String key, String value) {
+        record(selector, key + value);
+    }
+
+    /**
+     * Appends a .ui document, as UICommandBuilder.append does.
+     */
+    public void append(String document) {
+        record(document, "");
+    }
+
+    private void record(String selector, String value) {
+        commands++;
+        bytes += selector.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void reset() {
+        commands = 0;
+        bytes = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.islandium.langeditor.loadtest;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for PlayerRef: identifies a simulated editor and counts the chat messages it receives.
+ */
+public class SimulatedPlayer {
+
+    private final UUID uuid = UUID.randomUUID();
+    private final String username;
+    private long messages;
+
+    public SimulatedPlayer(String username) {
+        this.username = username;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void sendMessage(String message) {
+        messages++;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+}
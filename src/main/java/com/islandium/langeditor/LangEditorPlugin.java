@@ -2,11 +2,17 @@ package com.islandium.langeditor;
 
 import com.islandium.core.ui.IslandiumUIRegistry;
 import com.islandium.langeditor.command.LangEditorCommand;
+import com.islandium.langeditor.lint.LintEngine;
+import com.islandium.langeditor.service.AutosaveService;
+import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.service.TranslationMemory;
+import com.islandium.langeditor.service.WarmupService;
 import com.islandium.langeditor.ui.pages.LangFileSelectPage;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,6 +25,16 @@ public class LangEditorPlugin extends JavaPlugin {
     private static volatile LangEditorPlugin instance;
     private static final Logger LOGGER = Logger.getLogger("LangEditor");
 
+    // -Dlangeditor.autosave.interval=<secondes> (0 pour desactiver)
+    private static final int AUTOSAVE_INTERVAL_SECONDS = Integer.getInteger("langeditor.autosave.interval", 60);
+    // Temps maximum accorde a la derniere sauvegarde a l'arret du serveur
+    private static final long SHUTDOWN_SAVE_TIMEOUT_MS = Long.getLong("langeditor.autosave.shutdownTimeout", 5000L);
+    // Part d'un coeur accordee au prechauffage (0.25 = un quart)
+    private static final double WARMUP_CPU_SHARE = Double.parseDouble(System.getProperty("langeditor.warmup.cpuShare", "0.25"));
+
+    private AutosaveService autosave;
+    private WarmupService warmup;
+
     public LangEditorPlugin(JavaPluginInit init) {
         super(init);
     }
@@ -34,6 +50,18 @@ public class LangEditorPlugin extends JavaPlugin {
         // Register command
         getCommandRegistry().registerCommand(new LangEditorCommand(this));
 
+        // Sauvegarde automatique des modifications en arriere-plan
+        autosave = new AutosaveService(LangFileManager.get());
+        autosave.start(AUTOSAVE_INTERVAL_SECONDS);
+
+        // Diagnostics du fichier charge, tenus a jour a chaque modification
+        LintEngine.get().start();
+
+        // Prechauffage en arriere-plan : catalogue de la memoire de traduction, puis index
+        // des derniers fichiers ouverts, sans prendre plus que sa part de CPU
+        warmup = new WarmupService("./mods", WARMUP_CPU_SHARE);
+        warmup.start();
+
         // Bouton menu desactive pour le moment
         // IslandiumUIRegistry.getInstance().register(new IslandiumUIRegistry.Entry(
         //         "lang",
@@ -48,6 +76,26 @@ public class LangEditorPlugin extends JavaPlugin {
         log(Level.INFO, "Use /langedit to open the editor.");
     }
 
+    @Override
+    protected void shutdown() {
+        if (warmup != null) {
+            warmup.cancel();
+        }
+        TranslationMemory.get().shutdown();
+        LintEngine.get().stop();
+        if (autosave != null && !autosave.shutdown(SHUTDOWN_SAVE_TIMEOUT_MS)) {
+            log(Level.WARNING, "Autosave did not finish within " + SHUTDOWN_SAVE_TIMEOUT_MS + " ms, unsaved changes may be lost.");
+        }
+        // Fichiers quittes dont la sauvegarde a echoue ou n'a pas fini a temps
+        for (Path file : LangFileManager.get().getCachedDirtyFiles()) {
+            log(Level.WARNING, "Unsaved changes of " + file + " were not saved.");
+        }
+    }
+
+    public AutosaveService getAutosave() {
+        return autosave;
+    }
+
     public void log(Level level, String message) {
         LOGGER.log(level, "[LangEditor] " + message);
     }
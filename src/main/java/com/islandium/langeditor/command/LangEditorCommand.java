@@ -1,10 +1,24 @@
 package com.islandium.langeditor.command;
 
 import com.islandium.langeditor.LangEditorPlugin;
+import com.islandium.langeditor.exchange.ExchangeFormat;
+import com.islandium.langeditor.lint.LintEngine;
+import com.islandium.langeditor.lint.LintIssue;
+import com.islandium.langeditor.lint.PlaceholderChecker;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.model.MappedLangFile;
+import com.islandium.langeditor.service.DocumentCache;
+import com.islandium.langeditor.service.EditorStats;
 import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.service.LangPatch;
+import com.islandium.langeditor.service.SaveHistory;
+import com.islandium.langeditor.service.TranslationMemory;
 import com.islandium.langeditor.ui.pages.LangEditorMainPage;
+import com.islandium.langeditor.ui.pages.LangEntryEditorPage;
 import com.islandium.langeditor.ui.pages.LangFileSelectPage;
 import com.islandium.langeditor.util.ColorUtil;
+import com.islandium.langeditor.util.LatencyHistogram;
+import com.islandium.langeditor.util.StringPool;
 import com.islandium.core.api.util.NotificationType;
 import com.islandium.core.api.util.NotificationUtil;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
@@ -15,8 +29,17 @@ import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -24,23 +47,39 @@ import java.util.concurrent.CompletableFuture;
  *
  * Usage:
  *   /langedit                    - Opens the mod selection GUI
- *   /langedit <file_path>        - Opens a specific .lang file
- *   /langedit list <directory>   - List .lang files in a directory
+ *   /langedit <file_path> [key]  - Opens a specific .lang file, on the editor of a key if given
+ *   /langedit list [dir] [page]  - List the .lang files of a directory, one page per message
+ *   /langedit stats [reset]      - Show (or reset) editor latency stats
+ *   /langedit diff [patch_file]  - Export the unsaved changes as a .langpatch file
+ *   /langedit patch <patch_file> - Apply a .langpatch file to the loaded file
+ *   /langedit export <file>      - Export the loaded file to .json, .csv or .po
+ *   /langedit import <file>      - Import a .json, .csv or .po file and save
+ *   /langedit lint [directory]   - Check the markup, duplicate keys and placeholders of the .lang files
+ *   /langedit history            - List the saves of the loaded file
+ *   /langedit rollback <n>       - Restore the loaded file as it was before its last n saves
  */
 public class LangEditorCommand extends AbstractCommand {
 
     private final LangEditorPlugin plugin;
     private static final String DEFAULT_MODS_PATH = "./mods";
+    private static final int LINT_REPORT_LIMIT = 20;
+    private static final int HISTORY_LIMIT = 20;
+    private static final int LIST_PAGE_SIZE = 20;
+    private static final int COMPLETION_LIMIT = 50;
+    private static final List<String> ACTIONS = List.of("list", "stats", "diff", "patch", "export", "import", "lint", "history", "rollback");
+    private static final DateTimeFormatter HISTORY_DATE = DateTimeFormatter.ofPattern("dd/MM HH:mm:ss").withZone(ZoneId.systemDefault());
 
     private final OptionalArg<String> actionArg;
     private final OptionalArg<String> argValue;
+    private final OptionalArg<String> pageArg;
 
     public LangEditorCommand(@NotNull LangEditorPlugin plugin) {
         super("langedit", "Ouvre l'editeur de fichiers de langue");
         this.plugin = plugin;
 
-        actionArg = withOptionalArg("action", "Action (list) ou chemin du fichier", ArgTypes.STRING);
+        actionArg = withOptionalArg("action", "Action (list, stats, diff, patch, export, import, lint, history, rollback) ou chemin du fichier", ArgTypes.STRING);
         argValue = withOptionalArg("value", "Valeur supplementaire", ArgTypes.STRING);
+        pageArg = withOptionalArg("page", "Page de resultats", ArgTypes.STRING);
     }
 
     @Override
@@ -55,11 +94,58 @@ public class LangEditorCommand extends AbstractCommand {
         // Handle "list" subcommand
         if (action.equalsIgnoreCase("list")) {
             String directory = ctx.get(argValue);
-            return executeList(ctx, directory != null ? directory : DEFAULT_MODS_PATH);
+            String page = ctx.get(pageArg);
+            // "/langedit list 2" is the second page of the mods folder
+            if (page == null && directory != null && directory.matches("\\d+") && !Files.isDirectory(Paths.get(directory))) {
+                page = directory;
+                directory = null;
+            }
+            return executeList(ctx, directory != null ? directory : DEFAULT_MODS_PATH, page);
+        }
+
+        // Handle "stats" subcommand
+        if (action.equalsIgnoreCase("stats")) {
+            return executeStats(ctx, "reset".equalsIgnoreCase(ctx.get(argValue)));
+        }
+
+        // Handle "diff" subcommand
+        if (action.equalsIgnoreCase("diff")) {
+            return executeDiff(ctx, ctx.get(argValue));
+        }
+
+        // Handle "patch" subcommand
+        if (action.equalsIgnoreCase("patch")) {
+            return executePatch(ctx, ctx.get(argValue));
+        }
+
+        // Handle "export" subcommand
+        if (action.equalsIgnoreCase("export")) {
+            return executeExport(ctx, ctx.get(argValue));
+        }
+
+        // Handle "import" subcommand
+        if (action.equalsIgnoreCase("import")) {
+            return executeImport(ctx, ctx.get(argValue));
+        }
+
+        // Handle "lint" subcommand
+        if (action.equalsIgnoreCase("lint")) {
+            String directory = ctx.get(argValue);
+            return executeLint(ctx, directory != null ? directory : DEFAULT_MODS_PATH);
+        }
+
+        // Handle "history" subcommand
+        if (action.equalsIgnoreCase("history")) {
+            return executeHistory(ctx);
+        }
+
+        // Handle "rollback" subcommand
+        if (action.equalsIgnoreCase("rollback")) {
+            return executeRollback(ctx, ctx.get(argValue));
         }
 
         // Otherwise treat action as file path
-        return executeOpen(ctx, action);
+        return executeOpen(ctx, action, ctx.get(argValue));
     }
 
     /**
@@ -97,7 +183,7 @@ public class LangEditorCommand extends AbstractCommand {
     /**
      * Opens a specific .lang file.
      */
-    private CompletableFuture<Void> executeOpen(CommandContext ctx, String path) {
+    private CompletableFuture<Void> executeOpen(CommandContext ctx, String path, String key) {
         if (!ctx.isPlayer()) {
             NotificationUtil.send(ctx, NotificationType.ERROR, "Cette commande doit etre executee par un joueur.");
             return CompletableFuture.completedFuture(null);
@@ -136,39 +222,419 @@ public class LangEditorCommand extends AbstractCommand {
                 return;
             }
 
-            LangEditorMainPage page = new LangEditorMainPage(playerRef, plugin);
-            player.getPageManager().openCustomPage(ref, store, page);
+            // Cle donnee : ouvrir directement son editeur
+            LangEntry entry = key != null ? LangFileManager.get().getEntry(key).orElse(null) : null;
+            if (key != null && entry == null) {
+                NotificationUtil.send(ctx, NotificationType.WARNING, "Cle introuvable: " + key);
+            }
+            if (entry != null) {
+                player.getPageManager().openCustomPage(ref, store, new LangEntryEditorPage(playerRef, plugin, entry));
+            } else {
+                player.getPageManager().openCustomPage(ref, store, new LangEditorMainPage(playerRef, plugin));
+            }
         }, world);
     }
 
     /**
      * Lists .lang files in a directory.
      */
-    private CompletableFuture<Void> executeList(CommandContext ctx, String directory) {
-        List<Path> langFiles = LangFileManager.get().findLangFiles(directory);
+    private CompletableFuture<Void> executeList(CommandContext ctx, String directory, String pageArg) {
+        int requested;
+        try {
+            requested = pageArg != null ? Integer.parseInt(pageArg) : 1;
+        } catch (NumberFormatException e) {
+            requested = 0;
+        }
+        if (requested < 1) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Usage: /langedit list [dossier] [page]");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int page = requested;
+        return CompletableFuture.runAsync(() -> {
+            Path dir = Paths.get(directory);
+            // Catalog of the translation memory when it covers the folder, otherwise walk the disk
+            List<Path> langFiles = TranslationMemory.get().listFiles(dir);
+            if (langFiles == null) {
+                langFiles = new ArrayList<>(LangFileManager.get().findLangFiles(directory));
+                langFiles.sort(null);
+            } else {
+                EditorStats.get().increment("command.list.catalog");
+            }
+
+            if (langFiles.isEmpty()) {
+                NotificationUtil.send(ctx, NotificationType.WARNING, "Aucun fichier .lang trouve dans: " + directory);
+                return;
+            }
 
-        if (langFiles.isEmpty()) {
-            NotificationUtil.send(ctx, NotificationType.WARNING, "Aucun fichier .lang trouve dans: " + directory);
+            int pageCount = (langFiles.size() + LIST_PAGE_SIZE - 1) / LIST_PAGE_SIZE;
+            if (page > pageCount) {
+                NotificationUtil.send(ctx, NotificationType.WARNING, "Page " + page + " inexistante (" + pageCount + " pages).");
+                return;
+            }
+
+            // Une page = un seul message
+            Path base = dir.toAbsolutePath().normalize();
+            StringBuilder text = new StringBuilder("&aFichiers .lang trouves (" + langFiles.size() + ") - page " + page + "/" + pageCount + ":");
+            int from = (page - 1) * LIST_PAGE_SIZE;
+            for (Path file : langFiles.subList(from, Math.min(langFiles.size(), from + LIST_PAGE_SIZE))) {
+                Path absolute = file.toAbsolutePath().normalize();
+                text.append("\n&7 - ").append(absolute.startsWith(base) ? base.relativize(absolute) : file);
+            }
+            if (page < pageCount) {
+                text.append("\n&8/langedit list ").append(directory).append(' ').append(page + 1).append(" pour la suite");
+            }
+            ctx.sendMessage(ColorUtil.parse(text.toString()));
+        });
+    }
+
+    /**
+     * Shows the latency histograms and counters of the editor, or resets them.
+     */
+    private CompletableFuture<Void> executeStats(CommandContext ctx, boolean reset) {
+        EditorStats stats = EditorStats.get();
+        if (reset) {
+            stats.reset();
+            NotificationUtil.send(ctx, NotificationType.SUCCESS, "Statistiques reinitialisees.");
             return CompletableFuture.completedFuture(null);
         }
 
-        ctx.sendMessage(ColorUtil.parse("&aFichiers .lang trouves (" + langFiles.size() + "):"));
-        for (Path file : langFiles) {
-            ctx.sendMessage(ColorUtil.parse("&7 - " + file.toString()));
+        Map<String, LatencyHistogram> timers = stats.getTimers();
+        Map<String, Long> counters = stats.getCounters();
+        if (timers.isEmpty() && counters.isEmpty()) {
+            NotificationUtil.send(ctx, NotificationType.WARNING, "Aucune statistique pour le moment.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ctx.sendMessage(ColorUtil.parse("&aStatistiques LangEditor (p50 / p99 / max):"));
+        timers.forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                ctx.sendMessage(ColorUtil.parse("&7 - " + name + ": &f" + histogram.getCount() + " appels &8| &f"
+                        + formatNanos(histogram.getPercentileNanos(50)) + " / "
+                        + formatNanos(histogram.getPercentileNanos(99)) + " / "
+                        + formatNanos(histogram.getMaxNanos())));
+            }
+        });
+        counters.forEach((name, value) ->
+                ctx.sendMessage(ColorUtil.parse("&7 - " + name + ": &f" + value)));
+
+        StringPool pool = StringPool.get();
+        ctx.sendMessage(ColorUtil.parse("&7 - string_pool: &f" + pool.size() + " chaines, "
+                + (pool.getSavedBytes() / 1024) + " Ko economises"));
+
+        MappedLangFile mapped = LangFileManager.get().getMappedFile();
+        if (mapped != null) {
+            ctx.sendMessage(ColorUtil.parse("&7 - valeurs mappees: &f" + mapped.getValueHits() + " en cache, "
+                    + mapped.getValueMisses() + " decodees"));
+        }
+
+        DocumentCache.Usage documents = LangFileManager.get().getDocumentCacheUsage();
+        ctx.sendMessage(ColorUtil.parse("&7 - documents en cache: &f" + documents.documents() + " ("
+                + (documents.bytes() / (1024 * 1024)) + " / " + (documents.maxBytes() / (1024 * 1024)) + " Mo)"
+                + (documents.dirty() > 0 ? ", dont " + documents.dirty() + " non sauvegardes" : "")));
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Exports the unsaved changes of the loaded file as a patch.
+     */
+    private CompletableFuture<Void> executeDiff(CommandContext ctx, String patchPath) {
+        LangFileManager manager = LangFileManager.get();
+        String filePath = manager.getCurrentFilePath();
+        if (filePath == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        LangPatch patch = manager.createPatch();
+        if (patch.isEmpty()) {
+            NotificationUtil.send(ctx, NotificationType.WARNING, "Aucune modification non sauvegardee.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path target = Paths.get(patchPath != null ? patchPath
+                : filePath.substring(0, filePath.length() - ".lang".length()) + LangPatch.EXTENSION);
+        try {
+            patch.write(target, manager.getCurrentFileName());
+        } catch (IOException e) {
+            e.printStackTrace();
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Impossible d'ecrire le patch: " + target);
+            return CompletableFuture.completedFuture(null);
         }
 
+        NotificationUtil.send(ctx, NotificationType.SUCCESS, "Patch exporte: " + target, patch.getChanges().size() + " modifications");
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Applies a patch to the loaded file, without saving it.
+     */
+    private CompletableFuture<Void> executePatch(CommandContext ctx, String patchPath) {
+        LangFileManager manager = LangFileManager.get();
+        if (manager.getCurrentFilePath() == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (patchPath == null || patchPath.isEmpty()) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Usage: /langedit patch <fichier" + LangPatch.EXTENSION + ">");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        LangPatch patch;
+        try {
+            patch = LangPatch.read(Paths.get(patchPath));
+        } catch (IOException e) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Impossible de lire le patch: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        LangPatch.Result result = manager.applyPatch(patch);
+        NotificationUtil.send(ctx, NotificationType.SUCCESS, "Patch applique: " + result.applied() + " modifications",
+                result.skipped() + " deja presentes, " + result.conflicts().size() + " conflits");
+        for (String key : result.conflicts()) {
+            ctx.sendMessage(ColorUtil.parse("&c - Conflit: &f" + key));
+        }
+        if (result.applied() > 0) {
+            ctx.sendMessage(ColorUtil.parse("&7Utilisez le bouton Sauvegarder pour enregistrer les modifications."));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Exports the loaded file for spreadsheets and translation tools, off the server thread.
+     */
+    private CompletableFuture<Void> executeExport(CommandContext ctx, String targetPath) {
+        LangFileManager manager = LangFileManager.get();
+        if (manager.getCurrentFilePath() == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+        ExchangeFormat format = targetPath != null ? ExchangeFormat.forPath(Paths.get(targetPath)) : null;
+        if (format == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Usage: /langedit export <fichier.json|.csv|.po>");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path target = Paths.get(targetPath);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                int count = manager.exportEntries(target, format);
+                NotificationUtil.send(ctx, NotificationType.SUCCESS, "Fichier exporte: " + target, count + " entrees");
+            } catch (IOException e) {
+                e.printStackTrace();
+                NotificationUtil.send(ctx, NotificationType.ERROR, "Impossible d'exporter: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Imports translations into the loaded file and saves it, off the server thread.
+     */
+    private CompletableFuture<Void> executeImport(CommandContext ctx, String sourcePath) {
+        LangFileManager manager = LangFileManager.get();
+        if (manager.getCurrentFilePath() == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+        ExchangeFormat format = sourcePath != null ? ExchangeFormat.forPath(Paths.get(sourcePath)) : null;
+        if (format == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Usage: /langedit import <fichier.json|.csv|.po>");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path source = Paths.get(sourcePath);
+        return CompletableFuture.runAsync(() -> {
+            LangFileManager.ImportResult result;
+            try {
+                result = manager.importEntries(source, format);
+            } catch (IOException e) {
+                NotificationUtil.send(ctx, NotificationType.ERROR, "Import annule: " + e.getMessage());
+                return;
+            }
+
+            NotificationUtil.send(ctx, NotificationType.SUCCESS, "Import termine: " + (result.added() + result.updated()) + " modifications",
+                    result.added() + " ajoutees, " + result.updated() + " modifiees, " + result.unchanged() + " identiques");
+            if (!result.saved()) {
+                NotificationUtil.send(ctx, NotificationType.WARNING, "Erreur lors de la sauvegarde, les modifications restent non sauvegardees.");
+            }
+        });
+    }
+
+    /**
+     * Lints every .lang file of a directory in parallel, off the server thread, then reports
+     * the live diagnostics of the loaded file.
+     */
+    private CompletableFuture<Void> executeLint(CommandContext ctx, String directory) {
+        return CompletableFuture.runAsync(() -> {
+            List<Path> files = LangFileManager.get().findLangFiles(directory);
+            List<LintEngine.FileReport> reports = LintEngine.get().lintFiles(files);
+
+            long errors = reports.stream().mapToLong(LintEngine.FileReport::errorCount).sum();
+            long issues = reports.stream().mapToLong(r -> r.issues().size()).sum();
+            long cached = reports.stream().filter(LintEngine.FileReport::cached).count();
+            NotificationUtil.send(ctx, errors > 0 ? NotificationType.WARNING : NotificationType.SUCCESS,
+                    "Lint: " + issues + " problemes dont " + errors + " erreurs",
+                    reports.size() + " fichiers, " + cached + " inchanges");
+
+            int shown = 0;
+            for (LintEngine.FileReport report : reports) {
+                if (report.issues().isEmpty()) {
+                    continue;
+                }
+                ctx.sendMessage(ColorUtil.parse("&e" + report.file() + " &7(" + report.issues().size() + ")"));
+                for (LintIssue issue : report.issues()) {
+                    if (shown++ >= LINT_REPORT_LIMIT) {
+                        break;
+                    }
+                    ctx.sendMessage(ColorUtil.parse(formatIssue("ligne " + (issue.line() + 1), issue)));
+                }
+                if (shown >= LINT_REPORT_LIMIT) {
+                    ctx.sendMessage(ColorUtil.parse("&7..."));
+                    break;
+                }
+            }
+
+            // Placeholders compares entre les langues de chaque fichier
+            List<PlaceholderChecker.Mismatch> mismatches = PlaceholderChecker.get().check(files);
+            if (!mismatches.isEmpty()) {
+                ctx.sendMessage(ColorUtil.parse("&cPlaceholders incoherents: &f" + mismatches.size() + " cles"));
+                for (int i = 0; i < mismatches.size() && i < LINT_REPORT_LIMIT; i++) {
+                    PlaceholderChecker.Mismatch mismatch = mismatches.get(i);
+                    ctx.sendMessage(ColorUtil.parse("&c - &7" + mismatch.locale() + "/" + mismatch.file().getFileName()
+                            + " " + mismatch.key() + ": &f" + mismatch.message()));
+                }
+                if (mismatches.size() > LINT_REPORT_LIMIT) {
+                    ctx.sendMessage(ColorUtil.parse("&7..."));
+                }
+            }
+
+            // Modifications non sauvegardees comprises
+            if (LangFileManager.get().getCurrentFilePath() != null) {
+                List<LintIssue> loaded = LintEngine.get().getLoadedIssues();
+                ctx.sendMessage(ColorUtil.parse("&aFichier charge " + LangFileManager.get().getCurrentFileName()
+                        + ": &f" + loaded.size() + " problemes"));
+                for (int i = 0; i < loaded.size() && i < LINT_REPORT_LIMIT; i++) {
+                    ctx.sendMessage(ColorUtil.parse(formatIssue(loaded.get(i).key(), loaded.get(i))));
+                }
+            }
+        });
+    }
+
+    /**
+     * Lists the saves recorded for the loaded file, most recent first.
+     */
+    private CompletableFuture<Void> executeHistory(CommandContext ctx) {
+        LangFileManager manager = LangFileManager.get();
+        if (manager.getCurrentFilePath() == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            List<SaveHistory.Entry> history;
+            try {
+                history = manager.getHistory();
+            } catch (IOException e) {
+                NotificationUtil.send(ctx, NotificationType.ERROR, "Lecture de l'historique impossible: " + e.getMessage());
+                return;
+            }
+            if (history.isEmpty()) {
+                NotificationUtil.send(ctx, NotificationType.WARNING, "Aucune sauvegarde dans l'historique.");
+                return;
+            }
+
+            long size = history.stream().mapToLong(SaveHistory.Entry::size).sum();
+            ctx.sendMessage(ColorUtil.parse("&aHistorique de " + manager.getCurrentFileName() + ": &f"
+                    + history.size() + " sauvegardes &7(" + Math.max(1, size / 1024) + " Ko)"));
+            for (int i = 0; i < history.size() && i < HISTORY_LIMIT; i++) {
+                SaveHistory.Entry entry = history.get(i);
+                ctx.sendMessage(ColorUtil.parse("&7 #" + entry.number() + " &f" + HISTORY_DATE.format(Instant.ofEpochMilli(entry.timestamp()))
+                        + " &a+" + entry.added() + " &c-" + entry.removed() + " &7lignes"));
+            }
+            if (history.size() > HISTORY_LIMIT) {
+                ctx.sendMessage(ColorUtil.parse("&7..."));
+            }
+            ctx.sendMessage(ColorUtil.parse("&7/langedit rollback <n> restaure le fichier d'avant la sauvegarde #n"));
+        });
+    }
+
+    /**
+     * Restores the loaded file as it was before its last n saves.
+     */
+    private CompletableFuture<Void> executeRollback(CommandContext ctx, String stepsArg) {
+        LangFileManager manager = LangFileManager.get();
+        if (manager.getCurrentFilePath() == null) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Aucun fichier charge.");
+            return CompletableFuture.completedFuture(null);
+        }
+        int steps;
+        try {
+            steps = stepsArg != null ? Integer.parseInt(stepsArg) : -1;
+        } catch (NumberFormatException e) {
+            steps = -1;
+        }
+        if (steps < 1) {
+            NotificationUtil.send(ctx, NotificationType.ERROR, "Usage: /langedit rollback <n> (voir /langedit history)");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int target = steps;
+        return CompletableFuture.runAsync(() -> {
+            try {
+                manager.rollback(target);
+            } catch (IOException e) {
+                NotificationUtil.send(ctx, NotificationType.ERROR, "Restauration annulee: " + e.getMessage());
+                return;
+            }
+            NotificationUtil.send(ctx, NotificationType.SUCCESS, "Fichier restaure d'avant la sauvegarde #" + target,
+                    "/langedit rollback 1 annule cette restauration");
+        });
+    }
+
+    private static String formatIssue(String where, LintIssue issue) {
+        return (issue.isError() ? "&c - " : "&6 - ") + "&7" + where + ": &f" + issue.message();
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
     public CompletableFuture<List<String>> tabComplete(CommandContext ctx, String partial) {
+        // Completions read the tries kept up to date by the catalog and the loaded file, never the disk
         if (!ctx.provided(actionArg)) {
-            return CompletableFuture.completedFuture(
-                    List.of("list")
-                            .stream()
-                            .filter(s -> s.toLowerCase().startsWith(partial.toLowerCase()))
-                            .toList()
-            );
+            List<String> completions = new ArrayList<>();
+            String lower = partial.toLowerCase();
+            for (String action : ACTIONS) {
+                if (action.startsWith(lower)) {
+                    completions.add(action);
+                }
+            }
+            completions.addAll(TranslationMemory.get().completeFiles(partial, COMPLETION_LIMIT));
+            return CompletableFuture.completedFuture(completions);
+        }
+
+        String action = ctx.get(actionArg);
+        if (action.equalsIgnoreCase("list") || action.equalsIgnoreCase("lint")) {
+            List<String> directories = new ArrayList<>(TranslationMemory.get().completeFiles(partial, COMPLETION_LIMIT));
+            directories.removeIf(completion -> !completion.endsWith("/"));
+            return CompletableFuture.completedFuture(directories);
+        }
+        if (action.endsWith(".lang") && isLoaded(action)) {
+            return CompletableFuture.completedFuture(LangFileManager.get().completeKey(partial, COMPLETION_LIMIT));
         }
         return CompletableFuture.completedFuture(List.of());
     }
+
+    private static boolean isLoaded(String path) {
+        String current = LangFileManager.get().getCurrentFilePath();
+        try {
+            return current != null && Path.of(current).toAbsolutePath().normalize().equals(Path.of(path).toAbsolutePath().normalize());
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
 }
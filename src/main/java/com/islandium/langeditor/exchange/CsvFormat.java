@@ -0,0 +1,174 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV exchange files (RFC 4180): a "key,value" header then one row per entry. Fields
+ * with commas, quotes or line breaks are quoted. Columns after the value are ignored on
+ * import, so translators can add their own notes.
+ */
+final class CsvFormat {
+
+    private static final String HEADER = "key,value";
+
+    private CsvFormat() {}
+
+    static final class Writer implements EntryWriter {
+        private final java.io.Writer out;
+
+        Writer(java.io.Writer out) throws IOException {
+            this.out = out;
+            // BOM so that spreadsheets detect UTF-8
+            out.write('\uFEFF');
+            out.write(HEADER + "\r\n");
+        }
+
+        @Override
+        public void write(String key, String value) throws IOException {
+            writeField(key);
+            out.write(',');
+            writeField(ExchangeFormat.toText(value));
+            out.write("\r\n");
+        }
+
+        private void writeField(String field) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < field.length() && !quote; i++) {
+                char c = field.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(field);
+                return;
+            }
+            out.write('"');
+            out.write(field.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Reader implements EntryReader {
+        private final java.io.Reader in;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private boolean started;
+        private int peeked = -2;
+        private int line = 1;
+        private int recordLine;
+
+        Reader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Translation next() throws IOException {
+            if (!started) {
+                started = true;
+                if (peek() == '\uFEFF') {
+                    read();
+                }
+                if (!readRecord()) {
+                    return null;
+                }
+                // The header is optional
+                if (!(fields.size() >= 2 && fields.get(0).trim().equalsIgnoreCase("key")
+                        && fields.get(1).trim().equalsIgnoreCase("value"))) {
+                    return toTranslation();
+                }
+            }
+
+            while (readRecord()) {
+                // Blank lines are skipped
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                return toTranslation();
+            }
+            return null;
+        }
+
+        private Translation toTranslation() throws IOException {
+            if (fields.size() < 2) {
+                throw new IOException("CSV invalide ligne " + recordLine + ": colonne value manquante");
+            }
+            return new Translation(fields.get(0), ExchangeFormat.fromText(fields.get(1)));
+        }
+
+        /**
+         * Reads the fields of the next record. Returns false at the end of the file.
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            if (peek() == -1) {
+                return false;
+            }
+
+            recordLine = line;
+            while (true) {
+                field.setLength(0);
+                int c = read();
+                if (c == '"') {
+                    while (true) {
+                        c = read();
+                        if (c == -1) {
+                            throw new IOException("CSV invalide ligne " + recordLine + ": guillemet non ferme");
+                        }
+                        if (c == '"') {
+                            if (peek() != '"') {
+                                break;
+                            }
+                            read();
+                        }
+                        field.append((char) c);
+                    }
+                    c = read();
+                } else {
+                    while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                        field.append((char) c);
+                        c = read();
+                    }
+                }
+                fields.add(field.toString());
+
+                if (c == ',') {
+                    continue;
+                }
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c == '\n' || c == '\r' || c == -1) {
+                    return true;
+                }
+                throw new IOException("CSV invalide ligne " + line + ": caractere apres un guillemet fermant");
+            }
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
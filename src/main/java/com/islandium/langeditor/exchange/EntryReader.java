@@ -0,0 +1,23 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming reader of key/value pairs from an exchange file. Only the current entry is
+ * held in memory.
+ */
+public interface EntryReader extends Closeable {
+
+    /**
+     * Entry read from an exchange file, the value in .lang form ({@code \n} for line breaks).
+     */
+    record Translation(String key, String value) {}
+
+    /**
+     * Reads the next entry, or returns null at the end of the file.
+     *
+     * @throws IOException if the file is malformed
+     */
+    Translation next() throws IOException;
+}
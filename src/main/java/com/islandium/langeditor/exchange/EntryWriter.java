@@ -0,0 +1,16 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming writer of key/value pairs to an exchange file. Entries are written as they
+ * come, nothing is buffered beyond the underlying writer.
+ */
+public interface EntryWriter extends Closeable {
+
+    /**
+     * Writes one entry. The value is in .lang form, with {@code \n} for line breaks.
+     */
+    void write(String key, String value) throws IOException;
+}
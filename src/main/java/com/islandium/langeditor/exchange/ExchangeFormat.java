@@ -0,0 +1,76 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats used to exchange translations with spreadsheets and translation tools.
+ *
+ * Values are exported with real line breaks instead of the {@code \n} of the .lang files,
+ * which is what those tools show and edit, and converted back on import.
+ */
+public enum ExchangeFormat {
+    JSON(".json"),
+    CSV(".csv"),
+    PO(".po");
+
+    private final String extension;
+
+    ExchangeFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Finds the format of a file from its extension, or returns null if it is not supported.
+     */
+    public static ExchangeFormat forPath(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (ExchangeFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    public EntryWriter openWriter(Path path) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        return switch (this) {
+            case JSON -> new JsonFormat.Writer(out);
+            case CSV -> new CsvFormat.Writer(out);
+            case PO -> new PoFormat.Writer(out);
+        };
+    }
+
+    public EntryReader openReader(Path path) throws IOException {
+        BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        return switch (this) {
+            case JSON -> new JsonFormat.Reader(in);
+            case CSV -> new CsvFormat.Reader(in);
+            case PO -> new PoFormat.Reader(in);
+        };
+    }
+
+    /**
+     * Converts a .lang value to the text shown by the tools (real line breaks).
+     */
+    static String toText(String value) {
+        return value.replace("\\n", "\n");
+    }
+
+    /**
+     * Converts a text edited in a tool back to a .lang value.
+     */
+    static String fromText(String text) {
+        return text.replace("\r\n", "\n").replace("\r", "\n").replace("\n", "\\n");
+    }
+}
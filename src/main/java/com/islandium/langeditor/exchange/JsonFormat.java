@@ -0,0 +1,214 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * JSON exchange files: one object of key/value strings.
+ *
+ * <pre>
+ * {
+ *   "items.sword.name": "Epee",
+ *   "items.shield.name": "Bouclier"
+ * }
+ * </pre>
+ *
+ * Nested objects are accepted on import and flattened with dots, as produced by most
+ * i18n tools ({"items": {"sword": {"name": "Epee"}}}).
+ */
+final class JsonFormat {
+
+    private JsonFormat() {}
+
+    static final class Writer implements EntryWriter {
+        private final java.io.Writer out;
+        private boolean first = true;
+
+        Writer(java.io.Writer out) throws IOException {
+            this.out = out;
+            out.write('{');
+        }
+
+        @Override
+        public void write(String key, String value) throws IOException {
+            out.write(first ? "\n  " : ",\n  ");
+            first = false;
+            writeString(key);
+            out.write(": ");
+            writeString(ExchangeFormat.toText(value));
+        }
+
+        private void writeString(String s) throws IOException {
+            out.write('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"' -> out.write("\\\"");
+                    case '\\' -> out.write("\\\\");
+                    case '\n' -> out.write("\\n");
+                    case '\r' -> out.write("\\r");
+                    case '\t' -> out.write("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                    }
+                }
+            }
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.write(first ? "}\n" : "\n}\n");
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Pull parser reading one key/value pair per call. Only the path of the open objects is kept.
+     */
+    static final class Reader implements EntryReader {
+        private final java.io.Reader in;
+        private final Deque<String> prefixes = new ArrayDeque<>();
+        private boolean started;
+        private boolean first;
+        private int peeked = -2;
+        private int line = 1;
+
+        Reader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Translation next() throws IOException {
+            if (!started) {
+                expect('{');
+                started = true;
+                first = true;
+                prefixes.push("");
+            }
+
+            while (!prefixes.isEmpty()) {
+                skipWhitespace();
+                if (peek() == '}') {
+                    read();
+                    prefixes.pop();
+                    first = false;
+                    continue;
+                }
+                if (!first) {
+                    expect(',');
+                }
+                first = false;
+
+                skipWhitespace();
+                String name = readString();
+                expect(':');
+                skipWhitespace();
+
+                String prefix = prefixes.peek();
+                String key = prefix.isEmpty() ? name : prefix + "." + name;
+                if (peek() == '{') {
+                    read();
+                    prefixes.push(key);
+                    first = true;
+                    continue;
+                }
+                return new Translation(key, ExchangeFormat.fromText(readString()));
+            }
+
+            skipWhitespace();
+            if (peek() != -1) {
+                throw error("fin de fichier attendue");
+            }
+            return null;
+        }
+
+        private String readString() throws IOException {
+            if (read() != '"') {
+                throw error("chaine attendue");
+            }
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1 || c == '\n') {
+                    throw error("chaine non terminee");
+                }
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append((char) c);
+                    continue;
+                }
+                int escaped = read();
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append((char) escaped);
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            int h = read();
+                            if (Character.digit(h, 16) < 0) {
+                                throw error("sequence \\u invalide");
+                            }
+                            hex[i] = (char) h;
+                        }
+                        sb.append((char) Integer.parseInt(new String(hex), 16));
+                    }
+                    default -> throw error("echappement invalide");
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            skipWhitespace();
+            if (read() != expected) {
+                throw error("'" + expected + "' attendu");
+            }
+        }
+
+        private void skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF') {
+                read();
+            }
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private IOException error(String message) {
+            return new IOException("JSON invalide ligne " + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
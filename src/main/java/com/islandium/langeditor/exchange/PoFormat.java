@@ -0,0 +1,226 @@
+package com.islandium.langeditor.exchange;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Monolingual gettext PO files: the msgid is the key and the msgstr the value.
+ *
+ * <pre>
+ * msgid "items.sword.name"
+ * msgstr "Epee"
+ * </pre>
+ *
+ * On import, untranslated (empty msgstr) and fuzzy entries are skipped, as gettext does,
+ * and the first form of plural entries is used.
+ */
+final class PoFormat {
+
+    private PoFormat() {}
+
+    static final class Writer implements EntryWriter {
+        private final java.io.Writer out;
+
+        Writer(java.io.Writer out) throws IOException {
+            this.out = out;
+            out.write("msgid \"\"\nmsgstr \"\"\n\"Content-Type: text/plain; charset=UTF-8\\n\"\n");
+        }
+
+        @Override
+        public void write(String key, String value) throws IOException {
+            out.write("\nmsgid ");
+            writeString(key);
+            out.write("msgstr ");
+            writeString(ExchangeFormat.toText(value));
+        }
+
+        /**
+         * Writes a quoted string, split after each line break like msgmerge does.
+         */
+        private void writeString(String s) throws IOException {
+            int newline = s.indexOf('\n');
+            if (newline < 0 || newline == s.length() - 1) {
+                out.write("\"" + escape(s) + "\"\n");
+                return;
+            }
+            out.write("\"\"\n");
+            int start = 0;
+            while (start < s.length()) {
+                int end = s.indexOf('\n', start);
+                end = end < 0 ? s.length() : end + 1;
+                out.write("\"" + escape(s.substring(start, end)) + "\"\n");
+                start = end;
+            }
+        }
+
+        private static String escape(String s) {
+            return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\t", "\\t").replace("\r", "\\r");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Line-based reader. Keeps only the strings of the current entry.
+     */
+    static final class Reader implements EntryReader {
+        private final BufferedReader in;
+        private int lineNumber;
+
+        // Entry being read
+        private final StringBuilder msgid = new StringBuilder();
+        private final StringBuilder msgstr = new StringBuilder();
+        private StringBuilder current;
+        private boolean hasMsgid;
+        private boolean hasMsgstr;
+        private boolean fuzzy;
+        private boolean ignoredForm;
+
+        // Flag of the next entry, read before the current one was complete
+        private boolean nextFuzzy;
+
+        Reader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Translation next() throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    boolean isFuzzy = line.startsWith("#,") && line.contains("fuzzy");
+                    Translation translation = complete();
+                    if (translation != null || hasMsgstr) {
+                        reset();
+                        nextFuzzy = isFuzzy;
+                        if (translation != null) {
+                            return translation;
+                        }
+                    } else if (isFuzzy) {
+                        nextFuzzy = true;
+                    }
+                    continue;
+                }
+
+                if (line.startsWith("msgctxt ") || line.startsWith("msgid ")) {
+                    if (hasMsgstr) {
+                        Translation translation = complete();
+                        reset();
+                        start(line);
+                        if (translation != null) {
+                            return translation;
+                        }
+                        continue;
+                    }
+                    start(line);
+                } else if (line.startsWith("msgid_plural ")) {
+                    ignoredForm = true;
+                } else if (line.startsWith("msgstr ") || line.startsWith("msgstr[0] ")) {
+                    if (!hasMsgid) {
+                        throw error("msgstr sans msgid");
+                    }
+                    hasMsgstr = true;
+                    ignoredForm = false;
+                    current = msgstr;
+                    current.append(unquote(line.substring(line.indexOf(' ') + 1)));
+                } else if (line.startsWith("msgstr[")) {
+                    ignoredForm = true;
+                } else if (line.startsWith("\"")) {
+                    if (ignoredForm) {
+                        continue;
+                    }
+                    if (current == null) {
+                        throw error("chaine hors d'une entree");
+                    }
+                    current.append(unquote(line));
+                } else {
+                    throw error("mot-cle inconnu");
+                }
+            }
+
+            Translation translation = complete();
+            reset();
+            return translation;
+        }
+
+        private void start(String line) throws IOException {
+            if (line.startsWith("msgctxt ")) {
+                // The context is not used by .lang files
+                current = null;
+                ignoredForm = true;
+                return;
+            }
+            fuzzy = nextFuzzy;
+            nextFuzzy = false;
+            hasMsgid = true;
+            ignoredForm = false;
+            current = msgid;
+            current.setLength(0);
+            current.append(unquote(line.substring("msgid ".length())));
+        }
+
+        /**
+         * Returns the entry read so far if it is complete, translated and not fuzzy.
+         */
+        private Translation complete() {
+            if (!hasMsgid || !hasMsgstr || fuzzy || msgid.isEmpty() || msgstr.isEmpty()) {
+                return null;
+            }
+            return new Translation(msgid.toString(), ExchangeFormat.fromText(msgstr.toString()));
+        }
+
+        private void reset() {
+            msgid.setLength(0);
+            msgstr.setLength(0);
+            current = null;
+            hasMsgid = false;
+            hasMsgstr = false;
+            fuzzy = false;
+            ignoredForm = false;
+        }
+
+        private String unquote(String quoted) throws IOException {
+            if (quoted.length() < 2 || quoted.charAt(0) != '"' || quoted.charAt(quoted.length() - 1) != '"') {
+                throw error("chaine attendue");
+            }
+            StringBuilder sb = new StringBuilder(quoted.length());
+            for (int i = 1; i < quoted.length() - 1; i++) {
+                char c = quoted.charAt(i);
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (++i >= quoted.length() - 1) {
+                    throw error("echappement invalide");
+                }
+                switch (quoted.charAt(i)) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'r' -> sb.append('\r');
+                    case '"' -> sb.append('"');
+                    case '\\' -> sb.append('\\');
+                    default -> throw error("echappement invalide");
+                }
+            }
+            return sb.toString();
+        }
+
+        private IOException error(String message) {
+            return new IOException("PO invalide ligne " + lineNumber + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.islandium.langeditor.index;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typo-tolerant matcher using Myers' bit-parallel edit distance, with Hyyro's
+ * extension for transpositions.
+ *
+ * Computes the smallest edit distance (insertions, deletions, substitutions and swaps
+ * of adjacent characters) between the pattern and any substring of a text, so
+ * "inventroy" matches "items.inventory.title" with 1 edit.
+ * Patterns are limited to 64 characters (one machine word).
+ */
+public final class FuzzyMatcher {
+
+    public static final int MAX_PATTERN_LENGTH = 64;
+
+    private final String pattern;
+    private final int length;
+    private final int maxErrors;
+    private final long[] asciiMasks = new long[128];
+    private final Map<Character, Long> otherMasks = new HashMap<>();
+
+    public FuzzyMatcher(String query) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        this.pattern = lower.length() > MAX_PATTERN_LENGTH ? lower.substring(0, MAX_PATTERN_LENGTH) : lower;
+        this.length = pattern.length();
+        this.maxErrors = maxErrorsFor(length);
+
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                asciiMasks[c] |= 1L << i;
+            } else {
+                otherMasks.merge(c, 1L << i, (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Number of edits tolerated for a pattern length: 0 below 4 chars, then one per 4 chars, at most 3.
+     */
+    public static int maxErrorsFor(int length) {
+        return Math.min(3, length / 4);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * Returns the best edit distance of the pattern against a substring of the text,
+     * or -1 if it is greater than {@link #getMaxErrors()}.
+     */
+    public int distance(String text) {
+        if (length == 0) {
+            return 0;
+        }
+
+        long last = 1L << (length - 1);
+        long vp = -1L;
+        long vn = 0L;
+        long d0 = 0L;
+        long previousEq = 0L;
+        int score = length;
+        int best = length;
+
+        for (int j = 0; j < text.length(); j++) {
+            long eq = mask(Character.toLowerCase(text.charAt(j)));
+
+            // Diagonal zero-deltas, including the ones reached by swapping two characters
+            long transposed = ((~d0 & eq) << 1) & previousEq;
+            d0 = transposed | (((eq & vp) + vp) ^ vp) | eq | vn;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+
+            if ((hp & last) != 0) {
+                score++;
+            } else if ((hn & last) != 0) {
+                score--;
+            }
+
+            // The pattern may start anywhere in the text: no carry into the first row
+            hp <<= 1;
+            hn <<= 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previousEq = eq;
+
+            if (score < best) {
+                best = score;
+                if (best == 0) {
+                    break;
+                }
+            }
+        }
+
+        return best <= maxErrors ? best : -1;
+    }
+
+    private long mask(char c) {
+        if (c < 128) {
+            return asciiMasks[c];
+        }
+        Long mask = otherMasks.get(c);
+        return mask != null ? mask : 0L;
+    }
+}
@@ -0,0 +1,565 @@
+package com.islandium.langeditor.index;
+
+import com.islandium.langeditor.model.LangEntry;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable search index over the entries of a .lang file.
+ *
+ * The whole index lives in a single flat int buffer so it can be used as-is
+ * whether it was just built on the heap or memory-mapped from a .langidx sidecar:
+ *
+ *   int entryCount, int bucketBits
+ *   entry table   : entryCount x (lineNumber, keyLength, keyHash)
+ *   key hash table: entryCount x (keyHash, ordinal), sorted by hash
+ *   bucket starts : (1 << bucketBits) + 1 offsets into the postings
+ *   postings      : ordinals of the entries containing a trigram of each bucket
+ *   bigram starts : (1 << BIGRAM_BITS) + 1 offsets into the bigram postings
+ *   bigram postings: ordinals of the entries whose key contains a bigram of each bucket
+ *
+ * Trigrams and bigrams are hashed into buckets, so a lookup returns a superset of the matching
+ * entries. Callers must always verify candidates with {@link LangEntry#matches(String)}.
+ * The key bigrams narrow the typo-tolerant searches on short queries, which may share no
+ * trigram with their matches.
+ *
+ * An index built with {@link #buildKeys} only holds the trigrams of the keys: it is used for
+ * files whose values are not loaded, and cannot narrow a search on the values.
+ */
+public final class LangIndex {
+
+    /** Queries shorter than this cannot be narrowed by the index. */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int HEADER_INTS = 2;
+    private static final int ENTRY_INTS = 3;
+    private static final int MIN_BUCKET_BITS = 12;
+    private static final int MAX_BUCKET_BITS = 18;
+    // Lowercase keys hold a few hundred distinct bigrams
+    private static final int BIGRAM_BITS = 12;
+
+    private final IntBuffer data;
+    private final int entryCount;
+    private final int bucketBits;
+    private final int entryTable;
+    private final int hashTable;
+    private final int bucketTable;
+    private final int postings;
+    private final int bigramTable;
+    private final int bigramPostings;
+    private final boolean valuesIndexed;
+
+    private LangIndex(IntBuffer data, int entryCount, int bucketBits, int postingCount, boolean valuesIndexed) {
+        this.data = data;
+        this.valuesIndexed = valuesIndexed;
+        this.entryCount = entryCount;
+        this.bucketBits = bucketBits;
+        this.entryTable = HEADER_INTS;
+        this.hashTable = entryTable + entryCount * ENTRY_INTS;
+        this.bucketTable = hashTable + entryCount * 2;
+        this.postings = bucketTable + (1 << bucketBits) + 1;
+        this.bigramTable = postings + postingCount;
+        this.bigramPostings = bigramTable + (1 << BIGRAM_BITS) + 1;
+    }
+
+    /**
+     * Wraps an index previously serialized with {@link #buffer()}.
+     * Returns null if the buffer is truncated or inconsistent.
+     */
+    public static LangIndex wrap(ByteBuffer buffer) {
+        IntBuffer ints = buffer.asIntBuffer();
+        if (ints.limit() < HEADER_INTS) {
+            return null;
+        }
+
+        int entryCount = ints.get(0);
+        int bucketBits = ints.get(1);
+        if (entryCount < 0 || bucketBits < MIN_BUCKET_BITS || bucketBits > MAX_BUCKET_BITS) {
+            return null;
+        }
+
+        long bucketTable = HEADER_INTS + (long) entryCount * (ENTRY_INTS + 2);
+        long postings = bucketTable + (1L << bucketBits) + 1;
+        if (postings > ints.limit()) {
+            return null;
+        }
+        int postingCount = ints.get((int) bucketTable + (1 << bucketBits));
+        long bigramPostings = postings + postingCount + (1L << BIGRAM_BITS) + 1;
+        if (postingCount < 0 || bigramPostings > ints.limit()) {
+            return null;
+        }
+
+        LangIndex index = new LangIndex(ints, entryCount, bucketBits, postingCount, true);
+        int bigramCount = ints.get(index.bigramTable + (1 << BIGRAM_BITS));
+        if (bigramCount < 0 || bigramPostings + bigramCount != ints.limit()) {
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index for entries parsed from a file, in file order.
+     * The position of an entry in the list becomes its ordinal.
+     */
+    public static LangIndex build(List<LangEntry> entries) {
+        return build(entries, true);
+    }
+
+    /**
+     * Builds an index of the keys only, without reading the values.
+     */
+    public static LangIndex buildKeys(List<LangEntry> entries) {
+        return build(entries, false);
+    }
+
+    private static LangIndex build(List<LangEntry> entries, boolean values) {
+        int entryCount = entries.size();
+        int bucketBits = Math.max(MIN_BUCKET_BITS,
+                Math.min(MAX_BUCKET_BITS, 32 - Integer.numberOfLeadingZeros(entryCount * 4)));
+        int bucketCount = 1 << bucketBits;
+
+        int bigramCount = 1 << BIGRAM_BITS;
+
+        // Pass 1: count postings per bucket
+        int[] counts = new int[bucketCount + 1];
+        int[] bigramCounts = new int[bigramCount + 1];
+        int[] scratch = new int[64];
+        for (LangEntry entry : entries) {
+            scratch = entryBuckets(entry, values, bucketBits, scratch);
+            int n = scratch[0];
+            for (int i = 1; i <= n; i++) {
+                counts[scratch[i]]++;
+            }
+            scratch = keyBigrams(entry, scratch);
+            n = scratch[0];
+            for (int i = 1; i <= n; i++) {
+                bigramCounts[scratch[i]]++;
+            }
+        }
+
+        int[] starts = new int[bucketCount + 1];
+        for (int b = 0; b < bucketCount; b++) {
+            starts[b + 1] = starts[b] + counts[b];
+        }
+        int postingCount = starts[bucketCount];
+        int[] bigramStarts = new int[bigramCount + 1];
+        for (int b = 0; b < bigramCount; b++) {
+            bigramStarts[b + 1] = bigramStarts[b] + bigramCounts[b];
+        }
+        int bigramPostingCount = bigramStarts[bigramCount];
+
+        int size = HEADER_INTS + entryCount * (ENTRY_INTS + 2) + bucketCount + 1 + postingCount
+                + bigramCount + 1 + bigramPostingCount;
+        IntBuffer ints = ByteBuffer.allocate(size * Integer.BYTES).asIntBuffer();
+        LangIndex index = new LangIndex(ints, entryCount, bucketBits, postingCount, values);
+
+        ints.put(0, entryCount);
+        ints.put(1, bucketBits);
+
+        // Entry table and key hash table
+        long[] hashes = new long[entryCount];
+        for (int ord = 0; ord < entryCount; ord++) {
+            LangEntry entry = entries.get(ord);
+            int hash = entry.getKey().hashCode();
+            int base = index.entryTable + ord * ENTRY_INTS;
+            ints.put(base, entry.getLineNumber());
+            ints.put(base + 1, entry.getKey().length());
+            ints.put(base + 2, hash);
+            hashes[ord] = ((long) hash << 32) | ord;
+        }
+        Arrays.sort(hashes);
+        for (int i = 0; i < entryCount; i++) {
+            ints.put(index.hashTable + i * 2, (int) (hashes[i] >> 32));
+            ints.put(index.hashTable + i * 2 + 1, (int) hashes[i]);
+        }
+
+        // Pass 2: fill postings, ordinals ascending within each bucket
+        for (int b = 0; b <= bucketCount; b++) {
+            ints.put(index.bucketTable + b, starts[b]);
+        }
+        for (int b = 0; b <= bigramCount; b++) {
+            ints.put(index.bigramTable + b, bigramStarts[b]);
+        }
+        int[] cursor = Arrays.copyOf(starts, bucketCount);
+        int[] bigramCursor = Arrays.copyOf(bigramStarts, bigramCount);
+        for (int ord = 0; ord < entryCount; ord++) {
+            scratch = entryBuckets(entries.get(ord), values, bucketBits, scratch);
+            int n = scratch[0];
+            for (int i = 1; i <= n; i++) {
+                ints.put(index.postings + cursor[scratch[i]]++, ord);
+            }
+            scratch = keyBigrams(entries.get(ord), scratch);
+            n = scratch[0];
+            for (int i = 1; i <= n; i++) {
+                ints.put(index.bigramPostings + bigramCursor[scratch[i]]++, ord);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the serialized form of this index.
+     */
+    public ByteBuffer buffer() {
+        ByteBuffer bytes = ByteBuffer.allocate(data.limit() * Integer.BYTES);
+        bytes.asIntBuffer().put(data.duplicate().rewind());
+        return bytes;
+    }
+
+    /**
+     * Returns false for an index of the keys only ({@link #buildKeys}).
+     */
+    public boolean coversValues() {
+        return valuesIndexed;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getLineNumber(int ordinal) {
+        return data.get(entryTable + ordinal * ENTRY_INTS);
+    }
+
+    public int getKeyLength(int ordinal) {
+        return data.get(entryTable + ordinal * ENTRY_INTS + 1);
+    }
+
+    /**
+     * Finds the ordinal of the entry loaded from the given line, or -1.
+     */
+    public int ordinalOfLine(int lineNumber) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int line = getLineNumber(mid);
+            if (line < lineNumber) {
+                low = mid + 1;
+            } else if (line > lineNumber) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the ordinals (ascending) of the entries whose key had this hash at build time.
+     */
+    public int[] keyCandidates(String key) {
+        int hash = key.hashCode();
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (data.get(hashTable + mid * 2) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int end = low;
+        while (end < entryCount && data.get(hashTable + end * 2) == hash) {
+            end++;
+        }
+
+        int[] result = new int[end - low];
+        for (int i = low; i < end; i++) {
+            result[i - low] = data.get(hashTable + i * 2 + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals (ascending) of the entries that may contain the query
+     * in their key or value, or null if the query is too short to use the index.
+     */
+    public int[] candidates(String query) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        if (lowerQuery.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        int[] buckets = distinctBuckets(lowerQuery, bucketBits, new int[lowerQuery.length() + 1], 0);
+        int n = buckets[0];
+
+        // Intersect starting from the shortest posting list
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = buckets[i + 1];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(postingLength(a), postingLength(b)));
+
+        int[] result = postingList(order[0]);
+        for (int i = 1; i < n && result.length > 0; i++) {
+            result = intersect(result, order[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals (ascending) of the entries whose key may contain the query with at
+     * most maxErrors edits, or null if the index cannot narrow the search.
+     *
+     * An edit changes at most {@link #GRAM_LENGTH} trigrams of the query (4 for a swap of two
+     * characters), so a match shares at least (distinct query trigrams - 4 * maxErrors) buckets
+     * with the entry. Shorter queries are cut into maxErrors + 1 pieces one character apart: an
+     * edit damages at most one piece, so a match holds one of them unchanged, and its key all the
+     * bigrams of that piece.
+     */
+    public int[] fuzzyCandidates(String query, int maxErrors) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        if (lowerQuery.length() >= GRAM_LENGTH) {
+            int[] buckets = distinctBuckets(lowerQuery, bucketBits, new int[lowerQuery.length() + 1], 0);
+            int threshold = buckets[0] - (GRAM_LENGTH + 1) * maxErrors;
+            if (threshold > 0) {
+                return sharedPostings(buckets, threshold);
+            }
+        }
+        return bigramCandidates(lowerQuery, maxErrors);
+    }
+
+    /**
+     * Counts the query buckets of each entry by merging their posting lists, which are sorted,
+     * and keeps the entries reaching the threshold. Memory depends on the query, not on the file.
+     */
+    private int[] sharedPostings(int[] buckets, int threshold) {
+        int n = buckets[0];
+        // Heap of the query buckets on the next ordinal of their posting list
+        int[] next = new int[n];
+        int[] end = new int[n];
+        int[] heap = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            next[i] = postings + data.get(bucketTable + buckets[i + 1]);
+            end[i] = postings + data.get(bucketTable + buckets[i + 1] + 1);
+            if (next[i] < end[i]) {
+                heap[size] = i;
+                siftUp(heap, size++, next);
+            }
+        }
+
+        int[] result = new int[16];
+        int count = 0;
+        while (size > 0) {
+            int ord = data.get(next[heap[0]]);
+            int shared = 0;
+            while (size > 0 && data.get(next[heap[0]]) == ord) {
+                shared++;
+                int list = heap[0];
+                if (++next[list] < end[list]) {
+                    siftDown(heap, size, next);
+                } else {
+                    heap[0] = heap[--size];
+                    siftDown(heap, size, next);
+                }
+            }
+            if (shared >= threshold) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = ord;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void siftUp(int[] heap, int i, int[] next) {
+        int list = heap[i];
+        int ord = data.get(next[list]);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (data.get(next[heap[parent]]) <= ord) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = list;
+    }
+
+    private void siftDown(int[] heap, int size, int[] next) {
+        if (size == 0) {
+            return;
+        }
+        int list = heap[0];
+        int ord = data.get(next[list]);
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && data.get(next[heap[child + 1]]) < data.get(next[heap[child]])) {
+                child++;
+            }
+            if (data.get(next[heap[child]]) >= ord) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = list;
+    }
+
+    /**
+     * Unites, over the pieces of the query, the entries whose key holds every bigram of the
+     * piece. Returns null if the query is too short to be cut.
+     */
+    private int[] bigramCandidates(String query, int maxErrors) {
+        int length = query.length();
+        int pieces = maxErrors + 1;
+        int[] result = null;
+        if (length >= 3 * pieces - 1) {
+            // Pieces of at least 2 characters, one character apart
+            int pieceLength = (length - maxErrors) / pieces;
+            for (int p = 0; p < pieces; p++) {
+                int start = p * (pieceLength + 1);
+                result = union(result, pieceCandidates(query.substring(start, start + pieceLength)));
+            }
+        } else if (maxErrors == 1 && length >= 4) {
+            // Two touching pieces: a swap across them leaves the swapped pair instead
+            int half = length / 2;
+            result = union(pieceCandidates(query.substring(0, half)), pieceCandidates(query.substring(half)));
+            result = union(result, pieceCandidates("" + query.charAt(half) + query.charAt(half - 1)));
+        }
+        return result;
+    }
+
+    private int[] pieceCandidates(String piece) {
+        int[] bigrams = distinctBigrams(piece, new int[piece.length() + 1]);
+        int[] result = bigramPostingList(bigrams[1]);
+        for (int i = 2; i <= bigrams[0] && result.length > 0; i++) {
+            result = intersect(result, bigramPostings + data.get(bigramTable + bigrams[i]),
+                    bigramPostings + data.get(bigramTable + bigrams[i] + 1));
+        }
+        return result;
+    }
+
+    private int[] bigramPostingList(int bucket) {
+        int start = data.get(bigramTable + bucket);
+        int[] result = new int[data.get(bigramTable + bucket + 1) - start];
+        data.get(bigramPostings + start, result);
+        return result;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a == null) {
+            return b;
+        }
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int postingLength(int bucket) {
+        return data.get(bucketTable + bucket + 1) - data.get(bucketTable + bucket);
+    }
+
+    private int[] postingList(int bucket) {
+        int start = data.get(bucketTable + bucket);
+        int[] result = new int[postingLength(bucket)];
+        data.get(postings + start, result);
+        return result;
+    }
+
+    private int[] intersect(int[] current, int bucket) {
+        return intersect(current, postings + data.get(bucketTable + bucket), postings + data.get(bucketTable + bucket + 1));
+    }
+
+    private int[] intersect(int[] current, int start, int end) {
+        int[] result = new int[current.length];
+        int count = 0;
+        int i = 0;
+        int j = start;
+        while (i < current.length && j < end) {
+            int posting = data.get(j);
+            if (current[i] < posting) {
+                i++;
+            } else if (current[i] > posting) {
+                j++;
+            } else {
+                result[count++] = posting;
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Collects the distinct buckets of the key and value trigrams of an entry.
+     * The count is stored in scratch[0], the buckets follow.
+     */
+    private static int[] entryBuckets(LangEntry entry, boolean values, int bucketBits, int[] scratch) {
+        String key = entry.getKey().toLowerCase(Locale.ROOT);
+        String value = values ? entry.getValue().toLowerCase(Locale.ROOT) : "";
+        int needed = key.length() + value.length() + 1;
+        if (scratch.length < needed) {
+            scratch = new int[Math.max(needed, scratch.length * 2)];
+        }
+        scratch = distinctBuckets(key, bucketBits, scratch, 0);
+        return distinctBuckets(value, bucketBits, scratch, scratch[0]);
+    }
+
+    /**
+     * Collects the distinct buckets of the key bigrams of an entry, count in scratch[0].
+     */
+    private static int[] keyBigrams(LangEntry entry, int[] scratch) {
+        String key = entry.getKey().toLowerCase(Locale.ROOT);
+        if (scratch.length < key.length() + 1) {
+            scratch = new int[Math.max(key.length() + 1, scratch.length * 2)];
+        }
+        return distinctBigrams(key, scratch);
+    }
+
+    private static int[] distinctBigrams(String text, int[] out) {
+        int count = 0;
+        for (int i = 0; i + 2 <= text.length(); i++) {
+            int gram = text.charAt(i) * 31 + text.charAt(i + 1);
+            out[++count] = (gram * 0x9E3779B9) >>> (32 - BIGRAM_BITS);
+        }
+        return dedupe(out, count);
+    }
+
+    private static int[] distinctBuckets(String text, int bucketBits, int[] out, int count) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            int gram = (text.charAt(i) * 31 + text.charAt(i + 1)) * 31 + text.charAt(i + 2);
+            out[++count] = (gram * 0x9E3779B9) >>> (32 - bucketBits);
+        }
+        return dedupe(out, count);
+    }
+
+    private static int[] dedupe(int[] out, int count) {
+        Arrays.sort(out, 1, count + 1);
+
+        int unique = 0;
+        for (int i = 1; i <= count; i++) {
+            if (unique == 0 || out[unique] != out[i]) {
+                out[++unique] = out[i];
+            }
+        }
+        out[0] = unique;
+        return out;
+    }
+}
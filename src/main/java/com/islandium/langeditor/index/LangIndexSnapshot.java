@@ -0,0 +1,119 @@
+package com.islandium.langeditor.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes the .langidx sidecar of a .lang file.
+ *
+ * The sidecar stores a {@link LangIndex} behind a small header describing the
+ * source it was built from (size, modification time and content hash). On reopen
+ * the file is memory-mapped and the index is used directly from the mapping, so an
+ * unchanged file does not pay for index construction again.
+ */
+public final class LangIndexSnapshot {
+
+    public static final String EXTENSION = ".langidx";
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+
+    private LangIndexSnapshot() {}
+
+    /**
+     * Returns the sidecar path for a .lang file (server.lang -> server.langidx).
+     */
+    public static Path sidecarFor(Path source) {
+        String name = source.getFileName().toString();
+        if (name.endsWith(".lang")) {
+            name = name.substring(0, name.length() - ".lang".length());
+        }
+        return source.resolveSibling(name + EXTENSION);
+    }
+
+    /**
+     * Hashes the raw content of a source file.
+     */
+    public static long contentHash(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * Maps the sidecar of a source file and returns its index, or null if the
+     * sidecar is missing, corrupt or was built from a different version of the source.
+     */
+    public static LangIndex read(Path source, long size, long lastModified, long contentHash) throws IOException {
+        Path sidecar = sidecarFor(source);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            return null;
+        }
+        if (mapped.getLong(8) != size || mapped.getLong(16) != lastModified || mapped.getLong(24) != contentHash) {
+            return null;
+        }
+
+        return LangIndex.wrap(mapped.slice(HEADER_SIZE, mapped.limit() - HEADER_SIZE));
+    }
+
+    /**
+     * Writes the sidecar of a source file. The file is written next to the sidecar
+     * and moved into place so a concurrent reader never sees a partial index. The temporary
+     * file is per thread: the warm-up may write the sidecar of a file being loaded. It is
+     * deleted if the sidecar cannot be replaced.
+     */
+    public static void write(Path source, long size, long lastModified, long contentHash, LangIndex index) throws IOException {
+        Path sidecar = sidecarFor(source);
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(lastModified).putLong(contentHash).flip();
+        ByteBuffer body = index.buffer();
+
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+
+            try {
+                Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            // The old sidecar may still be mapped (Windows refuses to replace it): the next load writes it again
+            if (!moved) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.islandium.langeditor.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locality-sensitive index of texts by MinHash signature, to find similar values without
+ * comparing against every one of them.
+ *
+ * A text is reduced to its set of character trigrams (color tags removed, case and spaces
+ * normalized). Its signature keeps, for each of {@link #HASHES} hash functions, the
+ * smallest hash of its trigrams: two texts agree on one signature slot with a probability
+ * equal to the Jaccard similarity of their trigram sets. The signature is cut into
+ * {@link #BANDS} bands of {@link #ROWS} slots, and a text is stored in one bucket per band.
+ * Texts sharing at least one bucket are candidates: with 8 bands of 4 rows, a pair at 50%
+ * similarity is found 41% of the time, one at 70% 89% of the time, one at 90% 99.98%.
+ *
+ * Signatures are not stored, they are recomputed from the text to remove it.
+ */
+public final class MinHashLsh {
+
+    public static final int BANDS = 8;
+    public static final int ROWS = 4;
+    public static final int HASHES = BANDS * ROWS;
+
+    // Beyond this size a bucket holds very common text, a sample of it is enough
+    private static final int BUCKET_SAMPLE = 64;
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    // Band key -> ids, the count in slot 0
+    private final Map<Long, int[]> buckets = new HashMap<>();
+
+    public void add(int id, String text) {
+        long[] keys = bandKeys(shingles(text));
+        if (keys == null) {
+            return;
+        }
+        for (long key : keys) {
+            int[] ids = buckets.get(key);
+            if (ids == null) {
+                ids = new int[4];
+            } else if (ids[0] + 1 == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[++ids[0]] = id;
+            buckets.put(key, ids);
+        }
+    }
+
+    /**
+     * Removes a text, given the same text it was added with.
+     */
+    public void remove(int id, String text) {
+        long[] keys = bandKeys(shingles(text));
+        if (keys == null) {
+            return;
+        }
+        for (long key : keys) {
+            int[] ids = buckets.get(key);
+            if (ids == null) {
+                continue;
+            }
+            for (int i = 1; i <= ids[0]; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[ids[0]--];
+                    break;
+                }
+            }
+            if (ids[0] == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Finds the ids sharing at least one bucket with a text, the ones sharing the most
+     * buckets first.
+     */
+    public int[] candidates(String text) {
+        long[] keys = bandKeys(shingles(text));
+        if (keys == null) {
+            return new int[0];
+        }
+
+        Map<Integer, Integer> bandMatches = new HashMap<>();
+        for (long key : keys) {
+            int[] ids = buckets.get(key);
+            if (ids == null) {
+                continue;
+            }
+            int count = Math.min(ids[0], BUCKET_SAMPLE);
+            for (int i = 1; i <= count; i++) {
+                bandMatches.merge(ids[i], 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> sorted = new ArrayList<>(bandMatches.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        int[] result = new int[sorted.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sorted.get(i).getKey();
+        }
+        return result;
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Gets the sorted distinct trigram hashes of a normalized text. Texts shorter than a
+     * trigram are one shingle.
+     */
+    public static int[] shingles(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return new int[0];
+        }
+        if (normalized.length() < 3) {
+            return new int[]{normalized.hashCode()};
+        }
+
+        int[] hashes = new int[normalized.length() - 2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = (normalized.charAt(i) * 31 + normalized.charAt(i + 1)) * 31 + normalized.charAt(i + 2);
+        }
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, distinct);
+    }
+
+    /**
+     * Exact Jaccard similarity of two sorted shingle sets.
+     */
+    public static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /**
+     * Lower case, color tags and line breaks removed, spaces collapsed.
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                int end = text.indexOf('>', i);
+                if (end > 0) {
+                    i = end;
+                    continue;
+                }
+            }
+            if (c == '\\' && i + 1 < text.length() && text.charAt(i + 1) == 'n') {
+                c = ' ';
+                i++;
+            }
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    sb.append(' ');
+                    space = true;
+                }
+                continue;
+            }
+            sb.append(Character.toLowerCase(c));
+            space = false;
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    private static long[] bandKeys(int[] shingles) {
+        if (shingles.length == 0) {
+            return null;
+        }
+
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int k = 0; k < HASHES; k++) {
+                int h = (int) (mix(shingle ^ SEEDS[k]) >>> 33);
+                if (h < signature[k]) {
+                    signature[k] = h;
+                }
+            }
+        }
+
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = key * 0x9E3779B97F4A7C15L + signature[band * ROWS + row];
+            }
+            keys[band] = mix(key);
+        }
+        return keys;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
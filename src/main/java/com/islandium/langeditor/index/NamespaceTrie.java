@@ -0,0 +1,342 @@
+package com.islandium.langeditor.index;
+
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.util.StringPool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie of the dotted key namespaces ("items.sword.name" is items > sword > name).
+ *
+ * Every node caches the number of entries and of modified entries in its subtree, so
+ * browsing a namespace or collecting a key prefix costs the length of the prefix plus
+ * the size of the result, not the size of the file. Segments are compared case-insensitively,
+ * like the rest of the search.
+ *
+ * The trie follows the entries: callers report adds, removals, key changes and
+ * modification flag changes.
+ */
+public final class NamespaceTrie {
+
+    public static final char SEPARATOR = '.';
+
+    private final Node root = new Node(null, "");
+
+    /**
+     * A direct child of a browsed namespace.
+     *
+     * @param name      segment as written in the first key that created it
+     * @param path      full namespace path of the child
+     * @param count     entries in the subtree (including the child itself)
+     * @param dirty     modified entries in the subtree
+     * @param entries   entries whose key is exactly this path (usually 0 or 1)
+     * @param hasChildren true if deeper keys exist under this path
+     */
+    public record Child(String name, String path, int count, int dirty, List<LangEntry> entries, boolean hasChildren) {}
+
+    /**
+     * Existing entry next to which a new key belongs: just after it, or just before it.
+     */
+    public record Neighbour(LangEntry entry, boolean after) {}
+
+    public static NamespaceTrie build(Collection<LangEntry> entries) {
+        NamespaceTrie trie = new NamespaceTrie();
+        for (LangEntry entry : entries) {
+            trie.add(entry);
+        }
+        return trie;
+    }
+
+    public void add(LangEntry entry) {
+        Node node = root;
+        String key = entry.getKey();
+        int start = 0;
+        while (true) {
+            node.count++;
+            if (entry.isModified()) {
+                node.dirty++;
+            }
+            if (start > key.length()) {
+                break;
+            }
+            int end = key.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = key.length();
+            }
+            node = node.child(key.substring(start, end));
+            start = end + 1;
+        }
+        if (node.entries == null) {
+            node.entries = new ArrayList<>(1);
+        }
+        node.entries.add(entry);
+    }
+
+    /**
+     * Removes an entry stored under the given key with the given modification flag.
+     */
+    public void remove(LangEntry entry, String key, boolean modified) {
+        Node node = find(key);
+        if (node == null || node.entries == null || !node.entries.remove(entry)) {
+            return;
+        }
+        if (node.entries.isEmpty()) {
+            node.entries = null;
+        }
+
+        for (Node n = node; n != null; n = n.parent) {
+            n.count--;
+            if (modified) {
+                n.dirty--;
+            }
+            if (n.count == 0 && n.parent != null) {
+                n.parent.children.remove(fold(n.name));
+            }
+        }
+    }
+
+    public void remove(LangEntry entry) {
+        remove(entry, entry.getKey(), entry.isModified());
+    }
+
+    /**
+     * Moves an entry after a change of its key and/or modification flag.
+     */
+    public void update(LangEntry entry, String oldKey, boolean wasModified) {
+        if (oldKey.equals(entry.getKey())) {
+            if (wasModified != entry.isModified()) {
+                Node node = find(oldKey);
+                if (node != null) {
+                    for (Node n = node; n != null; n = n.parent) {
+                        n.dirty += entry.isModified() ? 1 : -1;
+                    }
+                }
+            }
+            return;
+        }
+        remove(entry, oldKey, wasModified);
+        add(entry);
+    }
+
+    /**
+     * Resets the dirty counts after a save, visiting only the dirty subtrees.
+     */
+    public void clearDirty() {
+        clearDirty(root);
+    }
+
+    private static void clearDirty(Node node) {
+        node.dirty = 0;
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                if (child.dirty > 0) {
+                    clearDirty(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of entries under a namespace ("" for the whole file).
+     */
+    public int getCount(String namespace) {
+        Node node = find(namespace);
+        return node != null ? node.count : 0;
+    }
+
+    /**
+     * Number of modified entries under a namespace ("" for the whole file).
+     */
+    public int getDirtyCount(String namespace) {
+        Node node = find(namespace);
+        return node != null ? node.dirty : 0;
+    }
+
+    /**
+     * Lists the direct children of a namespace ("" for the top level), sorted by name.
+     */
+    public List<Child> children(String namespace) {
+        Node node = find(namespace);
+        if (node == null || node.children == null) {
+            return List.of();
+        }
+
+        List<Child> children = new ArrayList<>(node.children.size());
+        for (Node child : node.children.values()) {
+            children.add(new Child(child.name, child.path(), child.count, child.dirty,
+                    child.entries != null ? List.copyOf(child.entries) : List.of(),
+                    child.children != null && !child.children.isEmpty()));
+        }
+        return children;
+    }
+
+    /**
+     * Collects the entries whose key starts with the given prefix, which may end in the middle
+     * of a segment ("items.sw" finds "items.sword.name"). Returns them in key order.
+     */
+    public List<LangEntry> collectPrefix(String prefix) {
+        List<LangEntry> results = new ArrayList<>();
+        int lastSeparator = prefix.lastIndexOf(SEPARATOR);
+        Node parent = lastSeparator < 0 ? root : find(prefix.substring(0, lastSeparator));
+        if (parent == null || parent.children == null) {
+            return results;
+        }
+
+        String partial = fold(prefix.substring(lastSeparator + 1));
+        for (Node child : parent.children.subMap(partial, partial + Character.MAX_VALUE).values()) {
+            collect(child, results);
+        }
+        return results;
+    }
+
+    /**
+     * Completes a key prefix up to the end of its last segment, in key order: the key when the
+     * segment holds an entry, the namespace followed by '.' when it has deeper keys
+     * ("items.sw" gives "items.sword."). Stops at the limit, so the cost does not depend on
+     * the number of keys under the prefix.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        int lastSeparator = prefix.lastIndexOf(SEPARATOR);
+        Node parent = lastSeparator < 0 ? root : find(prefix.substring(0, lastSeparator));
+        if (parent == null || parent.children == null) {
+            return completions;
+        }
+
+        String partial = fold(prefix.substring(lastSeparator + 1));
+        for (Node child : parent.children.subMap(partial, partial + Character.MAX_VALUE).values()) {
+            String path = child.path();
+            if (child.entries != null && completions.size() < limit) {
+                completions.add(path);
+            }
+            if (child.children != null && !child.children.isEmpty() && completions.size() < limit) {
+                completions.add(path + SEPARATOR);
+            }
+            if (completions.size() >= limit) {
+                break;
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Finds where a new key belongs among its namespace siblings: after the entry whose key
+     * comes just before it in its deepest existing namespace, or before the one that comes
+     * just after it. Returns null if even its top-level namespace is new.
+     */
+    public Neighbour findNeighbour(String key) {
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = key.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = key.length();
+            }
+            String segment = fold(key.substring(start, end));
+            Node child = node.children != null ? node.children.get(segment) : null;
+
+            if (child != null && end < key.length()) {
+                node = child;
+                start = end + 1;
+                continue;
+            }
+
+            // The key itself is a namespace: it goes before its sub-keys
+            if (child != null) {
+                return new Neighbour(first(child), false);
+            }
+            if (node == root) {
+                return null;
+            }
+            Map.Entry<String, Node> lower = node.children != null ? node.children.lowerEntry(segment) : null;
+            if (lower != null) {
+                return new Neighbour(last(lower.getValue()), true);
+            }
+            if (node.entries != null) {
+                return new Neighbour(node.entries.get(node.entries.size() - 1), true);
+            }
+            Map.Entry<String, Node> higher = node.children != null ? node.children.higherEntry(segment) : null;
+            return higher != null ? new Neighbour(first(higher.getValue()), false) : null;
+        }
+    }
+
+    private static LangEntry first(Node node) {
+        while (node.entries == null) {
+            node = node.children.firstEntry().getValue();
+        }
+        return node.entries.get(0);
+    }
+
+    private static LangEntry last(Node node) {
+        while (node.children != null && !node.children.isEmpty()) {
+            node = node.children.lastEntry().getValue();
+        }
+        return node.entries.get(node.entries.size() - 1);
+    }
+
+    private static void collect(Node node, List<LangEntry> results) {
+        if (node.entries != null) {
+            results.addAll(node.entries);
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                collect(child, results);
+            }
+        }
+    }
+
+    private Node find(String path) {
+        Node node = root;
+        if (path.isEmpty()) {
+            return node;
+        }
+        int start = 0;
+        while (node != null && start <= path.length()) {
+            int end = path.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = path.length();
+            }
+            node = node.children != null ? node.children.get(fold(path.substring(start, end))) : null;
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private static String fold(String segment) {
+        return segment.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final Node parent;
+        private final String name;
+        private TreeMap<String, Node> children;
+        private List<LangEntry> entries;
+        private int count;
+        private int dirty;
+
+        private Node(Node parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        private Node child(String segment) {
+            if (children == null) {
+                children = new TreeMap<>();
+            }
+            StringPool pool = StringPool.get();
+            return children.computeIfAbsent(pool.intern(fold(segment)), k -> new Node(this, pool.intern(segment)));
+        }
+
+        private String path() {
+            if (parent == null || parent.parent == null) {
+                return name;
+            }
+            return parent.path() + SEPARATOR + name;
+        }
+    }
+}
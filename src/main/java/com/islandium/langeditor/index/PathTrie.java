@@ -0,0 +1,141 @@
+package com.islandium.langeditor.index;
+
+import com.islandium.langeditor.util.StringPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Trie of file paths split on '/', for shell-like completion.
+ *
+ * Completing a prefix walks its full segments, then reads the matching children of the last
+ * one in order until the limit is reached: the cost is the length of the prefix plus the
+ * number of completions returned, whatever the number of paths. Segments are compared as
+ * written, like the file system.
+ */
+public final class PathTrie {
+
+    public static final char SEPARATOR = '/';
+
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * Adds a path, returns false if it was already there.
+     */
+    public boolean add(String path) {
+        Node node = root;
+        for (String segment : split(path)) {
+            node = node.children().computeIfAbsent(StringPool.get().intern(segment), Node::new);
+        }
+        if (node.terminal) {
+            return false;
+        }
+        node.terminal = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a path and the directories left empty, returns false if it was not there.
+     */
+    public boolean remove(String path) {
+        List<Node> nodes = new ArrayList<>();
+        Node node = root;
+        nodes.add(node);
+        for (String segment : split(path)) {
+            node = node.children != null ? node.children.get(segment) : null;
+            if (node == null) {
+                return false;
+            }
+            nodes.add(node);
+        }
+        if (!node.terminal) {
+            return false;
+        }
+        node.terminal = false;
+        size--;
+        for (int i = nodes.size() - 1; i > 0; i--) {
+            Node n = nodes.get(i);
+            if (n.terminal || (n.children != null && !n.children.isEmpty())) {
+                break;
+            }
+            nodes.get(i - 1).children.remove(n.name);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Completes a prefix up to the end of its last segment, in order: a path when the segment
+     * is a file, the segment followed by '/' when it is a directory ("mods/Ex" gives
+     * "mods/Example/"). A segment can be both.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        int lastSeparator = prefix.lastIndexOf(SEPARATOR);
+        String parentPath = prefix.substring(0, lastSeparator + 1);
+
+        Node parent = root;
+        for (String segment : split(prefix.substring(0, Math.max(0, lastSeparator)))) {
+            parent = parent.children != null ? parent.children.get(segment) : null;
+            if (parent == null) {
+                return completions;
+            }
+        }
+        if (parent.children == null) {
+            return completions;
+        }
+
+        String partial = prefix.substring(lastSeparator + 1);
+        for (Node child : parent.children.subMap(partial, partial + Character.MAX_VALUE).values()) {
+            if (child.terminal && completions.size() < limit) {
+                completions.add(parentPath + child.name);
+            }
+            if (child.children != null && !child.children.isEmpty() && completions.size() < limit) {
+                completions.add(parentPath + child.name + SEPARATOR);
+            }
+            if (completions.size() >= limit) {
+                break;
+            }
+        }
+        return completions;
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        private final String name;
+        private TreeMap<String, Node> children;
+        private boolean terminal;
+
+        private Node(String name) {
+            this.name = name;
+        }
+
+        private TreeMap<String, Node> children() {
+            if (children == null) {
+                children = new TreeMap<>();
+            }
+            return children;
+        }
+    }
+}
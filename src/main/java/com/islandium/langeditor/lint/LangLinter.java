@@ -0,0 +1,131 @@
+package com.islandium.langeditor.lint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks of the .lang markup ({@code <color is="#HEX">}, {@code <b>}, {@code <i>}) and of
+ * the file structure. Stateless, safe to call from several threads.
+ */
+public final class LangLinter {
+
+    private static final Pattern TAG = Pattern.compile("<(/?)([a-zA-Z]*)([^<>]*)>");
+    private static final Pattern COLOR_ATTRIBUTE = Pattern.compile("\\s+is=\"(#[0-9a-fA-F]{6}|#[0-9a-fA-F]{3})\"");
+
+    private LangLinter() {}
+
+    /**
+     * Checks the value of one entry.
+     */
+    public static List<LintIssue> lintValue(int line, String key, String value) {
+        if (value.isBlank()) {
+            return List.of(new LintIssue(line, key, LintIssue.Severity.WARNING, "Valeur vide"));
+        }
+        if (value.indexOf('<') < 0) {
+            return List.of();
+        }
+
+        List<LintIssue> issues = new ArrayList<>(0);
+
+        // Open tags with the end of their opening tag
+        Deque<OpenTag> open = new ArrayDeque<>();
+        Matcher matcher = TAG.matcher(value);
+        int lastEnd = 0;
+        while (matcher.find()) {
+            checkStrayBrackets(line, key, value.substring(lastEnd, matcher.start()), issues);
+            lastEnd = matcher.end();
+
+            boolean closing = !matcher.group(1).isEmpty();
+            String name = matcher.group(2);
+            String attributes = matcher.group(3);
+
+            // "a < b" is text, not a tag
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            if (!name.equals("color") && !name.equals("b") && !name.equals("i")) {
+                issues.add(new LintIssue(line, key, LintIssue.Severity.WARNING, "Balise inconnue: " + matcher.group()));
+                continue;
+            }
+
+            if (closing) {
+                if (open.isEmpty()) {
+                    issues.add(new LintIssue(line, key, LintIssue.Severity.ERROR, "</" + name + "> sans balise ouvrante"));
+                } else if (!open.peek().name().equals(name)) {
+                    issues.add(new LintIssue(line, key, LintIssue.Severity.ERROR,
+                            "</" + name + "> ferme <" + open.peek().name() + "> (balises croisees)"));
+                    open.removeIf(tag -> tag.name().equals(name));
+                } else if (open.pop().end() == matcher.start()) {
+                    issues.add(new LintIssue(line, key, LintIssue.Severity.WARNING, "Balise <" + name + "> vide"));
+                }
+                continue;
+            }
+
+            if (name.equals("color")) {
+                if (!COLOR_ATTRIBUTE.matcher(attributes).matches()) {
+                    issues.add(new LintIssue(line, key, LintIssue.Severity.ERROR,
+                            "Couleur invalide: " + matcher.group() + " (attendu <color is=\"#RRGGBB\">)"));
+                }
+            } else if (!attributes.isBlank()) {
+                issues.add(new LintIssue(line, key, LintIssue.Severity.WARNING, "Attributs ignores: " + matcher.group()));
+            }
+            open.push(new OpenTag(name, matcher.end()));
+        }
+        checkStrayBrackets(line, key, value.substring(lastEnd), issues);
+
+        for (OpenTag tag : open) {
+            issues.add(new LintIssue(line, key, LintIssue.Severity.ERROR, "<" + tag.name() + "> non fermee"));
+        }
+        return issues;
+    }
+
+    /**
+     * Checks the lines of a whole file: every entry, lines that are neither an entry nor
+     * a comment, and duplicate keys (only the first one is used in game).
+     */
+    public static List<LintIssue> lintLines(List<String> lines) {
+        List<LintIssue> issues = new ArrayList<>();
+        Map<String, Integer> firstLine = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank() || line.startsWith("#") || line.startsWith("//")) {
+                continue;
+            }
+
+            int equalsIndex = line.indexOf('=');
+            if (equalsIndex <= 0) {
+                issues.add(new LintIssue(i, null, LintIssue.Severity.WARNING, "Ligne ignoree (pas de cle=valeur)"));
+                continue;
+            }
+
+            String key = line.substring(0, equalsIndex);
+            Integer first = firstLine.putIfAbsent(key, i);
+            if (first != null) {
+                issues.add(duplicate(i, key, first));
+            }
+            issues.addAll(lintValue(i, key, line.substring(equalsIndex + 1)));
+        }
+        return issues;
+    }
+
+    static LintIssue duplicate(int line, String key, int firstLine) {
+        return new LintIssue(line, key, LintIssue.Severity.ERROR,
+                "Cle dupliquee, deja definie ligne " + (firstLine + 1) + " (cette valeur est ignoree)");
+    }
+
+    private static void checkStrayBrackets(int line, String key, String text, List<LintIssue> issues) {
+        int index = text.indexOf('<');
+        if (index >= 0 && text.indexOf("color", index) == index + 1) {
+            issues.add(new LintIssue(line, key, LintIssue.Severity.ERROR, "Balise <color mal formee"));
+        }
+    }
+
+    private record OpenTag(String name, int end) {}
+}
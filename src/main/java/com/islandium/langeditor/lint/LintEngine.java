@@ -0,0 +1,387 @@
+package com.islandium.langeditor.lint;
+
+import com.islandium.langeditor.index.LangIndexSnapshot;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.EditorStats;
+import com.islandium.langeditor.service.EntryChange;
+import com.islandium.langeditor.service.LangFileManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link LangLinter} on files and keeps the diagnostics of the loaded file up to date.
+ *
+ * Files on disk are linted in parallel, one task per file, and their results are cached
+ * by content hash: an unchanged file is not linted again. The loaded file is linted in
+ * parallel when it is loaded or changed by a transaction, then only the changed entries are re-linted.
+ *
+ * A whole-file lint runs on the lint thread, on a copy of the entry list taken under the
+ * manager lock, so loads and transactions do not wait for it. Single-entry changes received
+ * meanwhile are applied again on its result. The values of a lazily loaded file stay mapped:
+ * only its changed entries get the markup checks, the other ones only the duplicate key check.
+ */
+public final class LintEngine {
+
+    private static final LintEngine instance = new LintEngine();
+
+    /**
+     * Diagnostics of one file on disk.
+     *
+     * @param cached true if the file was unchanged since its last lint
+     */
+    public record FileReport(Path file, List<LintIssue> issues, boolean cached) {
+
+        public long errorCount() {
+            return issues.stream().filter(LintIssue::isError).count();
+        }
+    }
+
+    private record CachedLint(long contentHash, List<LintIssue> issues) {}
+
+    private final Map<Path, CachedLint> fileCache = new ConcurrentHashMap<>();
+
+    // Loaded file: markup issues of the entries having some, and the number of entries per key
+    private final Map<LangEntry, List<LintIssue>> entryIssues = new IdentityHashMap<>();
+    private final Map<String, Integer> keyCounts = new HashMap<>();
+    private int warningCount;
+    private int errorCount;
+
+    // Last whole-file lint scheduled, and the single-entry changes received since its snapshot
+    private long relintGeneration;
+    private boolean relintPending;
+    // Incremented when a whole-file lint result is installed
+    private volatile long revision;
+    private final List<EntryChange> changesSinceSnapshot = new ArrayList<>();
+
+    private final Consumer<EntryChange> changeListener = this::onChange;
+    private ExecutorService executor;
+
+    private LintEngine() {}
+
+    public static LintEngine get() {
+        return instance;
+    }
+
+    /**
+     * Follows the loaded file of the manager.
+     */
+    public void start() {
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LangEditor-Lint");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        LangFileManager manager = LangFileManager.get();
+        manager.addChangeListener(changeListener);
+        scheduleRelint();
+    }
+
+    public void stop() {
+        LangFileManager.get().removeChangeListener(changeListener);
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Lints files in parallel. Unchanged files come from the cache.
+     */
+    public List<FileReport> lintFiles(List<Path> files) {
+        long start = System.nanoTime();
+        try {
+            return files.parallelStream()
+                    .map(this::lintFile)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(FileReport::file))
+                    .toList();
+        } finally {
+            EditorStats.get().record("lint.files", start);
+        }
+    }
+
+    /**
+     * Lints one file, or returns null if it cannot be read.
+     */
+    public FileReport lintFile(Path file) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+
+        long hash = LangIndexSnapshot.contentHash(content);
+        CachedLint cached = fileCache.get(file);
+        if (cached != null && cached.contentHash() == hash) {
+            EditorStats.get().increment("lint.cache_hit");
+            return new FileReport(file, cached.issues(), true);
+        }
+
+        List<String> lines = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(content)).toString().lines().toList();
+        List<LintIssue> issues = List.copyOf(LangLinter.lintLines(lines));
+        fileCache.put(file, new CachedLint(hash, issues));
+        EditorStats.get().increment("lint.cache_miss");
+        return new FileReport(file, issues, false);
+    }
+
+    /**
+     * Gets the diagnostics of an entry of the loaded file.
+     */
+    public synchronized List<LintIssue> getIssues(LangEntry entry) {
+        List<LintIssue> issues = entryIssues.getOrDefault(entry, List.of());
+        if (keyCounts.getOrDefault(entry.getKey(), 0) < 2) {
+            return issues;
+        }
+        List<LintIssue> all = new ArrayList<>(issues);
+        all.add(duplicateIssue(entry));
+        return all;
+    }
+
+    public synchronized boolean hasErrors(LangEntry entry) {
+        if (keyCounts.getOrDefault(entry.getKey(), 0) > 1) {
+            return true;
+        }
+        for (LintIssue issue : entryIssues.getOrDefault(entry, List.of())) {
+            if (issue.isError()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets every diagnostic of the loaded file, in line order.
+     */
+    public List<LintIssue> getLoadedIssues() {
+        List<LintIssue> issues = new ArrayList<>();
+        LangFileManager.get().forEachEntry(entry -> issues.addAll(getIssues(entry)));
+        issues.sort(Comparator.comparingInt(LintIssue::line));
+        return issues;
+    }
+
+    /**
+     * Number of errors in the loaded file, duplicate keys included.
+     */
+    public synchronized int getErrorCount() {
+        int duplicates = 0;
+        for (int count : keyCounts.values()) {
+            if (count > 1) {
+                duplicates += count;
+            }
+        }
+        return errorCount + duplicates;
+    }
+
+    public synchronized int getWarningCount() {
+        return warningCount;
+    }
+
+    /**
+     * Gets a counter incremented each time the whole loaded file has been linted again, for
+     * views keeping rendered diagnostics of an unchanged file.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Called under the manager lock right after each change: single-entry changes are
+     * re-linted in place, a load or a transaction schedules a lint of the whole file.
+     */
+    private void onChange(EntryChange change) {
+        switch (change.kind()) {
+            case LOADED -> {
+                // Another file, or the same reloaded: its translations may have changed on disk
+                PlaceholderChecker.get().forgetGroups();
+                scheduleRelint();
+            }
+            case BATCH -> {
+                if (change.isFileWritten()) {
+                    PlaceholderChecker.get().forgetGroups();
+                }
+                scheduleRelint();
+            }
+            case ADDED, UPDATED, DELETED -> {
+                synchronized (this) {
+                    apply(change);
+                    if (relintPending) {
+                        changesSinceSnapshot.add(change);
+                    }
+                }
+            }
+            case SAVED -> {
+                // Nothing changed in the entries, but the saved file may become the reference
+                PlaceholderChecker.get().forgetGroups();
+            }
+        }
+    }
+
+    private void apply(EntryChange change) {
+        switch (change.kind()) {
+            case ADDED -> {
+                keyCounts.merge(change.entry().getKey(), 1, Integer::sum);
+                lintEntry(change.entry());
+            }
+            case UPDATED -> {
+                if (!change.oldKey().equals(change.entry().getKey())) {
+                    decrementKey(change.oldKey());
+                    keyCounts.merge(change.entry().getKey(), 1, Integer::sum);
+                }
+                lintEntry(change.entry());
+            }
+            case DELETED -> {
+                decrementKey(change.entry().getKey());
+                forget(change.entry());
+            }
+            default -> {
+                // Whole-file changes are not replayed
+            }
+        }
+    }
+
+    /**
+     * Copies the entries and their keys under the manager lock (held already when called from
+     * a listener) and lints them on the lint thread.
+     */
+    private void scheduleRelint() {
+        LangFileManager manager = LangFileManager.get();
+        synchronized (manager) {
+            List<LangEntry> entries = new ArrayList<>(manager.getEntryCount());
+            manager.forEachEntry(entries::add);
+            // Keys can be renamed before the lint runs, the renames are then replayed
+            String[] keys = new String[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+            }
+            boolean mapped = manager.getMappedFile() != null;
+
+            synchronized (this) {
+                if (executor == null) {
+                    return;
+                }
+                long generation = ++relintGeneration;
+                relintPending = true;
+                changesSinceSnapshot.clear();
+                try {
+                    executor.execute(() -> relint(entries, keys, mapped, generation));
+                } catch (RejectedExecutionException e) {
+                    // Stopped meanwhile
+                    relintPending = false;
+                }
+            }
+        }
+    }
+
+    private void relint(List<LangEntry> entries, String[] keys, boolean mapped, long generation) {
+        if (isStale(generation)) {
+            EditorStats.get().increment("lint.superseded");
+            return;
+        }
+        long start = System.nanoTime();
+
+        // The markup checks are independent, split them across cores. Unchanged values of a
+        // lazily loaded file are not decoded: reading them all would churn its mapped pages
+        Map<LangEntry, List<LintIssue>> issues = new ConcurrentHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : keys) {
+            counts.merge(key, 1, Integer::sum);
+        }
+        entries.parallelStream()
+                .filter(entry -> !mapped || entry.isModified())
+                .forEach(entry -> {
+                    List<LintIssue> found = LangLinter.lintValue(entry.getLineNumber(), entry.getKey(), entry.getValue());
+                    if (!found.isEmpty()) {
+                        issues.put(entry, found);
+                    }
+                });
+
+        synchronized (this) {
+            if (generation != relintGeneration) {
+                EditorStats.get().increment("lint.superseded");
+                return;
+            }
+            entryIssues.clear();
+            keyCounts.clear();
+            keyCounts.putAll(counts);
+            warningCount = 0;
+            errorCount = 0;
+            for (LangEntry entry : entries) {
+                List<LintIssue> found = issues.get(entry);
+                if (found != null) {
+                    remember(entry, found);
+                }
+            }
+            // Changes made while linting are not in the copy
+            for (EntryChange change : changesSinceSnapshot) {
+                apply(change);
+            }
+            changesSinceSnapshot.clear();
+            relintPending = false;
+            revision++;
+        }
+        EditorStats.get().record("lint.loaded", start);
+    }
+
+    private synchronized boolean isStale(long generation) {
+        return generation != relintGeneration;
+    }
+
+    private void lintEntry(LangEntry entry) {
+        forget(entry);
+        List<LintIssue> found = LangLinter.lintValue(entry.getLineNumber(), entry.getKey(), entry.getValue());
+        if (!found.isEmpty()) {
+            remember(entry, found);
+        }
+    }
+
+    private void remember(LangEntry entry, List<LintIssue> issues) {
+        entryIssues.put(entry, issues);
+        for (LintIssue issue : issues) {
+            if (issue.isError()) {
+                errorCount++;
+            } else {
+                warningCount++;
+            }
+        }
+    }
+
+    private void forget(LangEntry entry) {
+        List<LintIssue> issues = entryIssues.remove(entry);
+        if (issues != null) {
+            for (LintIssue issue : issues) {
+                if (issue.isError()) {
+                    errorCount--;
+                } else {
+                    warningCount--;
+                }
+            }
+        }
+    }
+
+    private void decrementKey(String key) {
+        keyCounts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private LintIssue duplicateIssue(LangEntry entry) {
+        return new LintIssue(entry.getLineNumber(), entry.getKey(), LintIssue.Severity.ERROR,
+                "Cle dupliquee (" + keyCounts.get(entry.getKey()) + " definitions, seule la premiere est utilisee)");
+    }
+}
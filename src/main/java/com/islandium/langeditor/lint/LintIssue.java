@@ -0,0 +1,21 @@
+package com.islandium.langeditor.lint;
+
+/**
+ * Problem found in a .lang file.
+ *
+ * @param line     0-based line of the file, or the line id of the entry for the loaded file
+ * @param key      key of the entry, null for a line that is not an entry
+ * @param severity ERROR for text shown garbled in game, WARNING for suspicious content
+ * @param message  description shown to the editor
+ */
+public record LintIssue(int line, String key, Severity severity, String message) {
+
+    public enum Severity {
+        ERROR,
+        WARNING
+    }
+
+    public boolean isError() {
+        return severity == Severity.ERROR;
+    }
+}
@@ -0,0 +1,282 @@
+package com.islandium.langeditor.lint;
+
+import com.islandium.langeditor.index.LangIndexSnapshot;
+import com.islandium.langeditor.service.EditorStats;
+import com.islandium.langeditor.service.TranslationMemory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the translations of a key use the same placeholders ({0}, {name}, %s, %1$d)
+ * in every locale: a translation that drops or changes one fails when the text is formatted.
+ *
+ * The placeholder signature of a value is the sorted list of its placeholders. Signatures
+ * are extracted once per file content and cached by content hash, and a file whose date
+ * and size did not change is not even re-read. Files are compared per locale group
+ * ({@link TranslationMemory#localeGroupOf}) as a hash join: the signatures of the reference
+ * locale are the build side, every other locale probes them key by key. Groups are checked
+ * in parallel.
+ *
+ * The editor checks every keystroke against the reference locale only (against the locales
+ * agreeing with it when the reference itself is edited). The files of each group and its
+ * reference are kept until {@link #forgetGroups()}, called when a file is loaded or saved.
+ */
+public final class PlaceholderChecker {
+
+    private static final PlaceholderChecker instance = new PlaceholderChecker();
+
+    // Locale the others are compared to, when the group has it
+    public static final String REFERENCE_LOCALE = "en-US";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{[^{}\\s]*}|%(\\d+\\$)?[-#+0,(]*\\d*(\\.\\d+)?[a-zA-Z%]");
+
+    /**
+     * Key whose placeholders differ from the reference locale.
+     *
+     * @param expected signature in the reference locale
+     * @param actual   signature in this locale
+     */
+    public record Mismatch(Path file, String locale, String key, String expected, String actual, String referenceLocale) {
+
+        public String message() {
+            return "Placeholders differents de " + referenceLocale + ": " + describe(actual) + " au lieu de " + describe(expected);
+        }
+
+        private static String describe(String signature) {
+            return signature.isEmpty() ? "aucun" : signature;
+        }
+    }
+
+    private record FileSignatures(long modified, long size, long contentHash, Map<String, String> byKey) {}
+
+    /**
+     * Files of a locale group, the reference one included, or null as reference if none can be read.
+     */
+    private record GroupFiles(List<Path> files, Path reference) {}
+
+    private final Map<Path, FileSignatures> cache = new ConcurrentHashMap<>();
+    private final Map<TranslationMemory.LocaleGroup, GroupFiles> groups = new ConcurrentHashMap<>();
+
+    private PlaceholderChecker() {}
+
+    public static PlaceholderChecker get() {
+        return instance;
+    }
+
+    /**
+     * Gets the sorted placeholders of a value, separated by spaces ("" if it has none).
+     * "%%" is an escaped percent sign, not a placeholder.
+     */
+    public static String signature(String value) {
+        if (value.indexOf('{') < 0 && value.indexOf('%') < 0) {
+            return "";
+        }
+        List<String> placeholders = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(value);
+        while (matcher.find()) {
+            if (!matcher.group().equals("%%")) {
+                placeholders.add(matcher.group());
+            }
+        }
+        if (placeholders.isEmpty()) {
+            return "";
+        }
+        Collections.sort(placeholders);
+        return String.join(" ", placeholders);
+    }
+
+    /**
+     * Compares the files of each locale group with the reference locale of the group.
+     */
+    public List<Mismatch> check(List<Path> files) {
+        long start = System.nanoTime();
+        try {
+            Map<TranslationMemory.LocaleGroup, List<Path>> byGroup = files.stream()
+                    .map(file -> file.toAbsolutePath().normalize())
+                    .distinct()
+                    .collect(Collectors.groupingBy(TranslationMemory::localeGroupOf));
+
+            return byGroup.values().parallelStream()
+                    .filter(group -> group.size() > 1)
+                    .flatMap(group -> checkGroup(group).stream())
+                    .sorted(Comparator.comparing(Mismatch::file).thenComparing(Mismatch::key))
+                    .toList();
+        } finally {
+            EditorStats.get().record("lint.placeholders", start);
+        }
+    }
+
+    /**
+     * Compares a value being edited with the same key in the reference locale of its file.
+     * A value of the reference itself is compared with the locales that agree with its saved
+     * value: the translations already broken are not its edit's fault.
+     */
+    public List<LintIssue> checkValue(Path file, String key, String value) {
+        Path normalized = file.toAbsolutePath().normalize();
+        GroupFiles group = groups.computeIfAbsent(TranslationMemory.localeGroupOf(normalized), g -> loadGroup(normalized));
+        if (group.reference() == null) {
+            return List.of();
+        }
+
+        String actual = signature(value);
+        List<LintIssue> issues = new ArrayList<>(0);
+        if (!normalized.equals(group.reference())) {
+            FileSignatures signatures = signatures(group.reference());
+            String expected = signatures != null ? signatures.byKey().get(key) : null;
+            addMismatch(issues, normalized, group.reference(), key, expected, actual);
+            return issues;
+        }
+
+        FileSignatures own = signatures(normalized);
+        String saved = own != null ? own.byKey().get(key) : null;
+        if (saved == null || saved.equals(actual)) {
+            return issues;
+        }
+        for (Path other : group.files()) {
+            FileSignatures signatures = other.equals(normalized) ? null : signatures(other);
+            if (signatures != null && saved.equals(signatures.byKey().get(key))) {
+                addMismatch(issues, normalized, other, key, saved, actual);
+            }
+        }
+        return issues;
+    }
+
+    private static void addMismatch(List<LintIssue> issues, Path file, Path other, String key, String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            Mismatch mismatch = new Mismatch(file, TranslationMemory.localeOf(file), key,
+                    expected, actual, TranslationMemory.localeOf(other));
+            issues.add(new LintIssue(-1, key, LintIssue.Severity.ERROR, mismatch.message()));
+        }
+    }
+
+    /**
+     * Forgets the files of the locale groups and their reference, so that the next edit
+     * looks for them again.
+     */
+    public void forgetGroups() {
+        groups.clear();
+    }
+
+    private List<Mismatch> checkGroup(List<Path> group) {
+        Path reference = reference(group);
+        FileSignatures build = reference != null ? signatures(reference) : null;
+        if (build == null) {
+            return List.of();
+        }
+
+        String referenceLocale = TranslationMemory.localeOf(reference);
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (Path file : group) {
+            FileSignatures probe = file.equals(reference) ? null : signatures(file);
+            if (probe == null) {
+                continue;
+            }
+            String locale = TranslationMemory.localeOf(file);
+            for (Map.Entry<String, String> entry : probe.byKey().entrySet()) {
+                String expected = build.byKey().get(entry.getKey());
+                if (expected != null && !expected.equals(entry.getValue())) {
+                    mismatches.add(new Mismatch(file, locale, entry.getKey(), expected, entry.getValue(), referenceLocale));
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Picks the reference of a group: its {@link #REFERENCE_LOCALE} file, or else the one
+     * defining the most keys. Returns null if no file can be read.
+     */
+    private Path reference(List<Path> group) {
+        Path reference = null;
+        FileSignatures build = null;
+        for (Path file : group) {
+            FileSignatures signatures = signatures(file);
+            if (signatures == null) {
+                continue;
+            }
+            boolean preferred = TranslationMemory.localeOf(file).equals(REFERENCE_LOCALE);
+            if (build == null || preferred || (!TranslationMemory.localeOf(reference).equals(REFERENCE_LOCALE)
+                    && signatures.byKey().size() > build.byKey().size())) {
+                reference = file;
+                build = signatures;
+            }
+        }
+        return reference;
+    }
+
+    /**
+     * Gets the signatures of a file by key, from the cache when its content is unchanged.
+     * Returns null if the file cannot be read.
+     */
+    private FileSignatures signatures(Path file) {
+        FileSignatures cached = cache.get(file);
+        long modified;
+        long size;
+        byte[] content;
+        try {
+            modified = Files.getLastModifiedTime(file).toMillis();
+            size = Files.size(file);
+            if (cached != null && cached.modified() == modified && cached.size() == size) {
+                return cached;
+            }
+            content = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+
+        long hash = LangIndexSnapshot.contentHash(content);
+        if (cached != null && cached.contentHash() == hash) {
+            cached = new FileSignatures(modified, size, hash, cached.byKey());
+            cache.put(file, cached);
+            return cached;
+        }
+
+        Map<String, String> byKey = new HashMap<>();
+        String text = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(content)).toString();
+        text.lines().forEach(line -> {
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+                return;
+            }
+            int equalsIndex = line.indexOf('=');
+            if (equalsIndex > 0) {
+                // The first definition of a key is the one used in game
+                byKey.putIfAbsent(line.substring(0, equalsIndex), signature(line.substring(equalsIndex + 1)));
+            }
+        });
+
+        FileSignatures signatures = new FileSignatures(modified, size, hash, byKey);
+        cache.put(file, signatures);
+        return signatures;
+    }
+
+    /**
+     * Lists the file in every locale folder next to the one of a file, the file included.
+     */
+    private GroupFiles loadGroup(Path file) {
+        Path localeDir = file.getParent();
+        Path languages = localeDir != null ? localeDir.getParent() : null;
+        if (languages == null || !Files.isDirectory(languages)) {
+            return new GroupFiles(List.of(), null);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (var dirs = Files.list(languages)) {
+            dirs.map(dir -> dir.resolve(file.getFileName()).toAbsolutePath().normalize())
+                    .filter(other -> other.equals(file) || Files.isRegularFile(other))
+                    .forEach(files::add);
+        } catch (IOException e) {
+            return new GroupFiles(List.of(), null);
+        }
+        // Alone in its group: nothing to compare with
+        return new GroupFiles(files, files.size() > 1 ? reference(files) : null);
+    }
+}
@@ -0,0 +1,453 @@
+package com.islandium.langeditor.model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Lines of a .lang file (entries, comments and blank lines) as a piece table.
+ *
+ * Every line has a stable id: the loaded lines keep their line number as id, inserted
+ * lines get the next free ids. The text of all ids lives in one append-only buffer, and the
+ * order of the file is a sequence of pieces (runs of consecutive ids) kept in a treap
+ * ordered by position, with the line count of each subtree. Inserting or deleting a line
+ * anywhere costs O(log n) and never renumbers the other lines, so entries and indexes can
+ * keep referring to their line id.
+ *
+ * A document over a {@link MappedLangFile} only holds the lines changed since the load,
+ * the others are decoded from the file when they are written.
+ */
+public final class LangDocument {
+
+    private final List<String> buffer;
+    private final TreeMap<Integer, Piece> pieceByStart = new TreeMap<>();
+    private final SplittableRandom random = new SplittableRandom(0x5EEDL);
+    private Piece root;
+
+    /**
+     * Creates a document from the lines of a file. The id of each line is its index.
+     */
+    public LangDocument(List<String> lines) {
+        this.buffer = new ArrayList<>(lines);
+        if (!lines.isEmpty()) {
+            root = newPiece(0, lines.size());
+        }
+    }
+
+    /**
+     * Creates a document over the lines of a mapped file. The id of each line is its index.
+     */
+    public LangDocument(MappedLangFile file) {
+        this.buffer = new MappedLines(file);
+        if (file.getLineCount() > 0) {
+            root = newPiece(0, file.getLineCount());
+        }
+    }
+
+    /**
+     * Gets the number of lines currently in the document.
+     */
+    public int getLineCount() {
+        return size(root);
+    }
+
+    /**
+     * Gets the number of pieces, i.e. how fragmented the document is.
+     */
+    public int getPieceCount() {
+        return pieceByStart.size();
+    }
+
+    /**
+     * Gets the text of a line, or null if it was deleted.
+     */
+    public String getLine(int id) {
+        return id >= 0 && id < buffer.size() ? buffer.get(id) : null;
+    }
+
+    /**
+     * Replaces the text of a line, without moving it.
+     */
+    public void setLine(int id, String text) {
+        if (contains(id)) {
+            buffer.set(id, text);
+        }
+    }
+
+    public boolean contains(int id) {
+        return pieceOf(id) != null;
+    }
+
+    /**
+     * Gets the 0-based position of a line in the document, or -1 if it was deleted.
+     */
+    public int positionOf(int id) {
+        Piece piece = pieceOf(id);
+        if (piece == null) {
+            return -1;
+        }
+
+        int position = size(piece.left) + (id - piece.start);
+        for (Piece child = piece, parent = piece.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.right == child) {
+                position += size(parent.left) + parent.length;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Adds a line at the end of the document. Returns its id.
+     */
+    public int append(String text) {
+        return insertAt(getLineCount(), text);
+    }
+
+    /**
+     * Inserts a line just after another one. Returns its id.
+     */
+    public int insertAfter(int id, String text) {
+        int position = positionOf(id);
+        return insertAt(position < 0 ? getLineCount() : position + 1, text);
+    }
+
+    /**
+     * Inserts a line just before another one. Returns its id.
+     */
+    public int insertBefore(int id, String text) {
+        int position = positionOf(id);
+        return insertAt(position < 0 ? getLineCount() : position, text);
+    }
+
+    /**
+     * Inserts a line at a position (0 to {@link #getLineCount()}). Returns its id.
+     */
+    public int insertAt(int position, String text) {
+        int id = buffer.size();
+        buffer.add(text);
+
+        Piece[] parts = split(root, Math.max(0, Math.min(position, getLineCount())));
+        Piece before = parts[0];
+
+        // Consecutive inserts at the same place extend the previous piece
+        Piece last = before;
+        while (last != null && last.right != null) {
+            last = last.right;
+        }
+        if (last != null && last.start + last.length == id) {
+            last.length++;
+            for (Piece p = last; p != null; p = p.parent) {
+                p.size++;
+            }
+            root = merge(before, parts[1]);
+        } else {
+            root = merge(merge(before, newPiece(id, 1)), parts[1]);
+        }
+        root.parent = null;
+        return id;
+    }
+
+    /**
+     * Removes a line from the document. Returns false if it was already deleted.
+     */
+    public boolean delete(int id) {
+        int position = positionOf(id);
+        if (position < 0) {
+            return false;
+        }
+
+        Piece[] head = split(root, position);
+        Piece[] tail = split(head[1], 1);
+        pieceByStart.remove(tail[0].start);
+        buffer.set(id, null);
+
+        root = merge(head[0], tail[1]);
+        if (root != null) {
+            root.parent = null;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the lines in document order.
+     */
+    public List<String> toLines() {
+        if (buffer instanceof MappedLines mapped) {
+            return mapped.snapshot(pieces());
+        }
+        List<String> lines = new ArrayList<>(getLineCount());
+        for (Piece piece : pieces()) {
+            lines.addAll(buffer.subList(piece.start, piece.start + piece.length));
+        }
+        return lines;
+    }
+
+    /**
+     * Merges the adjacent pieces holding consecutive ids and rebuilds a balanced treap.
+     */
+    public void compact() {
+        List<Piece> merged = new ArrayList<>();
+        for (Piece piece : pieces()) {
+            Piece previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && previous.start + previous.length == piece.start) {
+                previous.length += piece.length;
+                pieceByStart.remove(piece.start);
+            } else {
+                merged.add(piece);
+            }
+        }
+
+        // Balanced rebuild, breadth-first so the highest priorities go to the top
+        int[] priorities = new int[merged.size()];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+        Arrays.sort(priorities);
+        int nextPriority = priorities.length - 1;
+
+        root = null;
+        List<Piece> order = new ArrayList<>(merged.size());
+        Deque<int[]> ranges = new ArrayDeque<>();
+        if (!merged.isEmpty()) {
+            ranges.add(new int[]{0, merged.size() - 1, -1});
+        }
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int mid = (range[0] + range[1]) >>> 1;
+            Piece piece = merged.get(mid);
+            piece.priority = priorities[nextPriority--];
+            piece.left = null;
+            piece.right = null;
+            piece.parent = range[2] < 0 ? null : merged.get(range[2]);
+            if (piece.parent == null) {
+                root = piece;
+            } else if (mid < range[2]) {
+                piece.parent.left = piece;
+            } else {
+                piece.parent.right = piece;
+            }
+            order.add(piece);
+
+            if (range[0] < mid) {
+                ranges.add(new int[]{range[0], mid - 1, mid});
+            }
+            if (mid < range[1]) {
+                ranges.add(new int[]{mid + 1, range[1], mid});
+            }
+        }
+
+        // Sizes bottom-up: children come after their parent in breadth-first order
+        for (int i = order.size() - 1; i >= 0; i--) {
+            update(order.get(i));
+        }
+    }
+
+    private Piece pieceOf(int id) {
+        Map.Entry<Integer, Piece> floor = pieceByStart.floorEntry(id);
+        if (floor == null) {
+            return null;
+        }
+        Piece piece = floor.getValue();
+        return id < piece.start + piece.length ? piece : null;
+    }
+
+    private List<Piece> pieces() {
+        List<Piece> pieces = new ArrayList<>(pieceByStart.size());
+        Deque<Piece> stack = new ArrayDeque<>();
+        Piece current = root;
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            pieces.add(current);
+            current = current.right;
+        }
+        return pieces;
+    }
+
+    private Piece newPiece(int start, int length) {
+        Piece piece = new Piece(start, length, random.nextInt(Integer.MAX_VALUE));
+        pieceByStart.put(start, piece);
+        return piece;
+    }
+
+    /**
+     * Splits a subtree into its first {@code count} lines and the rest, cutting a piece in two if needed.
+     */
+    private Piece[] split(Piece node, int count) {
+        if (node == null) {
+            return new Piece[2];
+        }
+
+        Piece[] parts;
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            parts = split(node.left, count);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+        } else if (count >= leftSize + node.length) {
+            parts = split(node.right, count - leftSize - node.length);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+        } else {
+            int cut = count - leftSize;
+            Piece tail = newPiece(node.start + cut, node.length - cut);
+            node.length = cut;
+            Piece right = node.right;
+            node.right = null;
+            update(node);
+            if (right != null) {
+                right.parent = null;
+            }
+            parts = new Piece[]{node, merge(tail, right)};
+        }
+
+        if (parts[0] != null) {
+            parts[0].parent = null;
+        }
+        if (parts[1] != null) {
+            parts[1].parent = null;
+        }
+        return parts;
+    }
+
+    /**
+     * Concatenates two subtrees, every line of {@code a} coming before those of {@code b}.
+     */
+    private static Piece merge(Piece a, Piece b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static void update(Piece piece) {
+        piece.size = piece.length + size(piece.left) + size(piece.right);
+        if (piece.left != null) {
+            piece.left.parent = piece;
+        }
+        if (piece.right != null) {
+            piece.right.parent = piece;
+        }
+    }
+
+    private static int size(Piece piece) {
+        return piece != null ? piece.size : 0;
+    }
+
+    private static final class Piece {
+        private final int start;
+        private int length;
+        private int priority;
+        private int size;
+        private Piece left;
+        private Piece right;
+        private Piece parent;
+
+        private Piece(int start, int length, int priority) {
+            this.start = start;
+            this.length = length;
+            this.priority = priority;
+            this.size = length;
+        }
+    }
+
+    /**
+     * Lines of a mapped file: the loaded lines not changed since are read from the file.
+     */
+    private static final class MappedLines extends AbstractList<String> {
+        private final MappedLangFile file;
+        private final Map<Integer, String> changed = new HashMap<>();
+        private final List<String> appended = new ArrayList<>();
+
+        private MappedLines(MappedLangFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public String get(int id) {
+            if (id >= file.getLineCount()) {
+                return appended.get(id - file.getLineCount());
+            }
+            return changed.containsKey(id) ? changed.get(id) : file.line(id);
+        }
+
+        @Override
+        public String set(int id, String text) {
+            String previous = get(id);
+            if (id >= file.getLineCount()) {
+                appended.set(id - file.getLineCount(), text);
+            } else {
+                changed.put(id, text);
+            }
+            return previous;
+        }
+
+        @Override
+        public boolean add(String text) {
+            return appended.add(text);
+        }
+
+        @Override
+        public int size() {
+            return file.getLineCount() + appended.size();
+        }
+
+        /**
+         * Copies the changed lines and the order of the pieces, so the lines can be written
+         * while the document keeps changing. Unchanged lines are decoded as they are read.
+         */
+        private List<String> snapshot(List<Piece> pieces) {
+            Map<Integer, String> changedCopy = new HashMap<>(changed);
+            List<String> appendedCopy = new ArrayList<>(appended);
+            int[] starts = new int[pieces.size()];
+            int[] positions = new int[pieces.size() + 1];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = pieces.get(i).start;
+                positions[i + 1] = positions[i] + pieces.get(i).length;
+            }
+            int lineCount = file.getLineCount();
+
+            return new AbstractList<>() {
+                @Override
+                public String get(int position) {
+                    int piece = Arrays.binarySearch(positions, 0, starts.length, position);
+                    if (piece < 0) {
+                        piece = -piece - 2;
+                    }
+                    int id = starts[piece] + position - positions[piece];
+                    if (id >= lineCount) {
+                        return appendedCopy.get(id - lineCount);
+                    }
+                    return changedCopy.containsKey(id) ? changedCopy.get(id) : file.line(id);
+                }
+
+                @Override
+                public int size() {
+                    return positions[starts.length];
+                }
+            };
+        }
+    }
+}
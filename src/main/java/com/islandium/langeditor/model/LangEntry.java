@@ -1,22 +1,42 @@
 package com.islandium.langeditor.model;
 
+import java.util.Locale;
+
 /**
  * Represents a single entry in a .lang file (key=value).
+ * The value of an entry of a large file is read from its {@link MappedLangFile} until it is changed.
  */
 public class LangEntry {
 
     private final int lineNumber;
     private String key;
     private String value;
+    private final MappedLangFile source;
     private boolean modified;
+    private long version;
 
     public LangEntry(int lineNumber, String key, String value) {
         this.lineNumber = lineNumber;
         this.key = key;
         this.value = value;
+        this.source = null;
+        this.modified = false;
+    }
+
+    /**
+     * Creates an entry whose value is decoded from the mapped file when needed.
+     */
+    public LangEntry(int lineNumber, String key, MappedLangFile source) {
+        this.lineNumber = lineNumber;
+        this.key = key;
+        this.source = source;
         this.modified = false;
     }
 
+    /**
+     * Gets the id of the line of this entry in its {@link LangDocument}: the line number
+     * in the file as loaded, or a new id for an entry added since.
+     */
     public int getLineNumber() {
         return lineNumber;
     }
@@ -28,15 +48,26 @@ public class LangEntry {
     public void setKey(String key) {
         this.key = key;
         this.modified = true;
+        this.version++;
     }
 
     public String getValue() {
-        return value;
+        String current = value;
+        return current != null ? current : source.value(lineNumber);
     }
 
     public void setValue(String value) {
         this.value = value;
         this.modified = true;
+        this.version++;
+    }
+
+    /**
+     * Gets the change counter of this entry, incremented by every change of its key or value.
+     * Editors keep the version they started from to detect concurrent changes.
+     */
+    public long getVersion() {
+        return version;
     }
 
     public boolean isModified() {
@@ -51,14 +82,14 @@ public class LangEntry {
      * Returns the formatted line for the .lang file.
      */
     public String toLine() {
-        return key + "=" + value;
+        return key + "=" + getValue();
     }
 
     /**
      * Extracts a preview of the value without color tags for display.
      */
     public String getPlainValue() {
-        return value.replaceAll("<color[^>]*>", "")
+        return getValue().replaceAll("<color[^>]*>", "")
                     .replaceAll("</color>", "")
                     .replace("\\n", " ");
     }
@@ -70,13 +101,14 @@ public class LangEntry {
         if (query == null || query.isEmpty()) {
             return true;
         }
-        String lowerQuery = query.toLowerCase();
-        return key.toLowerCase().contains(lowerQuery) ||
-               value.toLowerCase().contains(lowerQuery);
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        return key.toLowerCase(Locale.ROOT).contains(lowerQuery) ||
+               getValue().toLowerCase(Locale.ROOT).contains(lowerQuery);
     }
 
     @Override
     public String toString() {
+        String value = getValue();
         return "LangEntry{" +
                 "line=" + lineNumber +
                 ", key='" + key + '\'' +
@@ -0,0 +1,220 @@
+package com.islandium.langeditor.model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a .lang file mapped in memory, for files too large to hold as strings.
+ *
+ * Only the byte offset of each line is kept on the heap. Lines and values are decoded from
+ * the mapped bytes when asked for, and the last {@link #VALUE_CACHE_SIZE} decoded values are
+ * kept in an LRU so that the rows on screen are not decoded again on every render.
+ *
+ * Lines are split like {@link String#lines()}: on "\n", "\r\n" or "\r".
+ *
+ * The file itself is not mapped but a copy of it, under {@code langeditor/mapped} in the
+ * server folder ({@code -Dlangeditor.mappedCopies=<dossier>}): Windows does not let a mapped
+ * file be replaced, and a mapping is only released when the garbage collector frees its
+ * buffer. Saves can then replace the file, the mapping still describes it as it was loaded.
+ * The copy is deleted once mapped where the system allows it, otherwise by a later open.
+ */
+public final class MappedLangFile {
+
+    // Decoded values kept for the rows being displayed or edited
+    public static final int VALUE_CACHE_SIZE = 4096;
+
+    private static final Path COPY_DIRECTORY = Path.of(System.getProperty("langeditor.mappedCopies", "langeditor/mapped"));
+
+    private final Path path;
+    private final MappedByteBuffer bytes;
+    // Start of each line, plus the file size at the end
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private final Map<Integer, String> values = new LinkedHashMap<>(VALUE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > VALUE_CACHE_SIZE;
+        }
+    };
+    private long valueHits;
+    private long valueMisses;
+
+    private MappedLangFile(Path path, MappedByteBuffer bytes, int[] lineStarts, int lineCount) {
+        this.path = path;
+        this.bytes = bytes;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Maps a copy of a file and finds the start of its lines, in a single pass over the bytes.
+     */
+    public static MappedLangFile open(Path path) throws IOException {
+        MappedByteBuffer bytes = mapCopy(path);
+
+        int length = bytes.limit();
+        int[] starts = new int[Math.max(16, length / 64)];
+        int count = 0;
+        if (length > 0) {
+            starts[count++] = 0;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.get(i);
+            if (b == '\r' && i + 1 < length && bytes.get(i + 1) == '\n') {
+                continue;
+            }
+            if ((b == '\n' || b == '\r') && i + 1 < length) {
+                if (count + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = length;
+        return new MappedLangFile(path, bytes, starts, count);
+    }
+
+    /**
+     * Copies a file and maps the copy. Serialized: an open deletes the copies of the earlier
+     * ones, which must be mapped by then.
+     */
+    private static synchronized MappedByteBuffer mapCopy(Path path) throws IOException {
+        Path copy = copyOf(path);
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Fichier trop volumineux (" + size + " octets, 2 Go maximum)");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            deleteQuietly(copy);
+        }
+    }
+
+    private static Path copyOf(Path path) throws IOException {
+        Files.createDirectories(COPY_DIRECTORY);
+        // Copies left by earlier opens, unless still mapped
+        try (var copies = Files.list(COPY_DIRECTORY)) {
+            copies.forEach(MappedLangFile::deleteQuietly);
+        }
+        Path copy = Files.createTempFile(COPY_DIRECTORY, "mapped-", ".lang");
+        Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    private static void deleteQuietly(Path copy) {
+        try {
+            Files.deleteIfExists(copy);
+        } catch (IOException e) {
+            // Encore mappee (Windows) : supprimee a la prochaine ouverture
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Decodes a whole line, without its line break.
+     */
+    public String line(int line) {
+        int start = lineStarts[line];
+        return decode(start, lineEnd(line) - start);
+    }
+
+    /**
+     * Decodes the key of an entry line, or returns null for a comment, a blank line or a
+     * line without key. Same rules as the eager parser.
+     */
+    public String key(int line) {
+        int start = lineStarts[line];
+        int end = lineEnd(line);
+        if (start == end) {
+            return null;
+        }
+        byte first = bytes.get(start);
+        if (first == '#' || (first == '/' && end - start > 1 && bytes.get(start + 1) == '/')) {
+            return null;
+        }
+        int equals = indexOfEquals(start, end);
+        return equals > start ? decode(start, equals - start) : null;
+    }
+
+    /**
+     * Decodes the value of an entry line (after its first '='), from the cache if it was
+     * decoded recently.
+     */
+    public String value(int line) {
+        synchronized (values) {
+            String value = values.get(line);
+            if (value != null) {
+                valueHits++;
+                return value;
+            }
+            valueMisses++;
+        }
+
+        int end = lineEnd(line);
+        int equals = indexOfEquals(lineStarts[line], end);
+        String value = equals < 0 ? "" : decode(equals + 1, end - equals - 1);
+        synchronized (values) {
+            values.put(line, value);
+        }
+        return value;
+    }
+
+    public long getValueHits() {
+        synchronized (values) {
+            return valueHits;
+        }
+    }
+
+    public long getValueMisses() {
+        synchronized (values) {
+            return valueMisses;
+        }
+    }
+
+    private int lineEnd(int line) {
+        int start = lineStarts[line];
+        int end = lineStarts[line + 1];
+        if (end > start && bytes.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && bytes.get(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    // '=' never appears inside a multi-byte UTF-8 sequence, a byte search is enough
+    private int indexOfEquals(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes.get(i) == '=') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(int offset, int length) {
+        byte[] buffer = new byte[length];
+        bytes.get(offset, buffer);
+        return new String(buffer, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,158 @@
+package com.islandium.langeditor.query;
+
+import com.islandium.langeditor.index.LangIndex;
+import com.islandium.langeditor.index.NamespaceTrie;
+import com.islandium.langeditor.model.LangEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search box query, parsed once and compiled to a {@link QueryNode} tree.
+ *
+ * Syntax (clauses are combined with AND, "-" negates a clause, values may be quoted):
+ *   key:items.*          key matching a pattern (* and ?), or containing the text
+ *   value:"epee de fer"  value containing the text (or matching a pattern)
+ *   modified:true        entries modified since the last save
+ *   color:#ff5555        values using this color tag
+ *   empty                blank values ("-empty" for non-blank ones)
+ *   word                 key or value containing the word
+ *
+ * A query without any field, "-" or quote is a single plain substring, as before
+ * (so "empty" alone searches the word, "-empty" or "key:x empty" use the flag).
+ */
+public final class LangQuery {
+
+    private static final LangQuery MATCH_ALL = new LangQuery("", null);
+
+    private final String text;
+    private final QueryNode root;
+
+    private LangQuery(String text, QueryNode root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    public static LangQuery parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return MATCH_ALL;
+        }
+
+        List<String> tokens = tokenize(text);
+        if (!isStructured(text, tokens)) {
+            return new LangQuery(text, new QueryNode.Text(text));
+        }
+
+        List<QueryNode> clauses = new ArrayList<>();
+        for (String token : tokens) {
+            boolean negated = token.length() > 1 && token.startsWith("-");
+            QueryNode clause = compileClause(negated ? token.substring(1) : token);
+            if (clause != null) {
+                clauses.add(negated ? new QueryNode.Not(clause) : clause);
+            }
+        }
+
+        if (clauses.isEmpty()) {
+            return MATCH_ALL;
+        }
+        return new LangQuery(text, clauses.size() == 1 ? clauses.get(0) : new QueryNode.And(List.copyOf(clauses)));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isMatchAll() {
+        return root == null;
+    }
+
+    public boolean matches(LangEntry entry) {
+        return root == null || root.test(entry);
+    }
+
+    /**
+     * Returns the ordinals of the entries that may match according to the indexes,
+     * or null if every entry has to be tested. The namespace trie is optional.
+     */
+    public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+        return root == null ? null : root.candidates(index, namespaces);
+    }
+
+    private static boolean isStructured(String text, List<String> tokens) {
+        if (text.indexOf('"') >= 0) {
+            return true;
+        }
+        for (String token : tokens) {
+            if (token.length() > 1 && token.startsWith("-")) {
+                return true;
+            }
+            int colon = token.indexOf(':');
+            if (colon > 0 && isField(token.substring(0, colon))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isField(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "key", "value", "modified", "color" -> true;
+            default -> false;
+        };
+    }
+
+    private static QueryNode compileClause(String clause) {
+        int colon = clause.indexOf(':');
+        if (colon > 0 && isField(clause.substring(0, colon))) {
+            String field = clause.substring(0, colon).toLowerCase(Locale.ROOT);
+            String value = clause.substring(colon + 1);
+            if (value.isEmpty()) {
+                return null;
+            }
+            return switch (field) {
+                case "key" -> QueryNode.Field.of(true, value);
+                case "value" -> QueryNode.Field.of(false, value);
+                case "modified" -> new QueryNode.Modified(Boolean.parseBoolean(value) || value.equalsIgnoreCase("oui"));
+                case "color" -> QueryNode.Color.of(value);
+                default -> null;
+            };
+        }
+
+        if (clause.equalsIgnoreCase("empty")) {
+            return new QueryNode.Empty();
+        }
+        return clause.isEmpty() ? null : new QueryNode.Text(clause);
+    }
+
+    /**
+     * Splits on whitespace outside of double quotes and removes the quotes.
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean hasToken = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                hasToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (hasToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                current.append(c);
+                hasToken = true;
+            }
+        }
+        if (hasToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
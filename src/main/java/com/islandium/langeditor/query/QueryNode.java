@@ -0,0 +1,221 @@
+package com.islandium.langeditor.query;
+
+import com.islandium.langeditor.index.LangIndex;
+import com.islandium.langeditor.index.NamespaceTrie;
+import com.islandium.langeditor.model.LangEntry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Node of a compiled {@link LangQuery} predicate tree.
+ *
+ * Each node can test an entry and, when the indexes can answer it, return a superset of
+ * the matching entry ordinals so only those entries are tested.
+ */
+public sealed interface QueryNode {
+
+    boolean test(LangEntry entry);
+
+    /**
+     * Returns the ordinals (ascending) of the entries that may match, or null if the
+     * indexes cannot narrow this node. Entries changed since the index was built are
+     * always tested in addition to these.
+     */
+    default int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+        return null;
+    }
+
+    /**
+     * All children must match. Candidates are the intersection of the children's candidates.
+     */
+    record And(List<QueryNode> children) implements QueryNode {
+
+        @Override
+        public boolean test(LangEntry entry) {
+            for (QueryNode child : children) {
+                if (!child.test(entry)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+            int[] result = null;
+            for (QueryNode child : children) {
+                int[] childCandidates = child.candidates(index, namespaces);
+                if (childCandidates != null) {
+                    result = result == null ? childCandidates : intersect(result, childCandidates);
+                }
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Negated clause ("-empty"). Never narrows the candidates.
+     */
+    record Not(QueryNode child) implements QueryNode {
+
+        @Override
+        public boolean test(LangEntry entry) {
+            return !child.test(entry);
+        }
+    }
+
+    /**
+     * Plain text found in the key or the value (the historical search box behavior).
+     */
+    record Text(String text) implements QueryNode {
+
+        @Override
+        public boolean test(LangEntry entry) {
+            return entry.matches(text);
+        }
+
+        @Override
+        public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+            return index.coversValues() ? index.candidates(text) : null;
+        }
+    }
+
+    /**
+     * key:... or value:... clause. Without wildcard the text is searched anywhere in the field,
+     * with * and ? the whole field must match the pattern. Case-insensitive.
+     * A key pattern ending with its only * ("items.sword.*") is a prefix answered by the namespace trie.
+     */
+    record Field(boolean key, String text, Pattern glob, String literal, String prefix) implements QueryNode {
+
+        static Field of(boolean key, String text) {
+            String lower = text.toLowerCase(Locale.ROOT);
+            if (lower.indexOf('*') < 0 && lower.indexOf('?') < 0) {
+                return new Field(key, lower, null, lower, null);
+            }
+
+            StringBuilder regex = new StringBuilder();
+            String longestLiteral = "";
+            StringBuilder literal = new StringBuilder();
+            for (char c : lower.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    regex.append(c == '*' ? ".*" : ".");
+                    if (literal.length() > longestLiteral.length()) {
+                        longestLiteral = literal.toString();
+                    }
+                    literal.setLength(0);
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > longestLiteral.length()) {
+                longestLiteral = literal.toString();
+            }
+            boolean prefixOnly = lower.indexOf('*') == lower.length() - 1 && lower.indexOf('?') < 0;
+            return new Field(key, lower, Pattern.compile(regex.toString(), Pattern.DOTALL), longestLiteral,
+                    key && prefixOnly ? lower.substring(0, lower.length() - 1) : null);
+        }
+
+        @Override
+        public boolean test(LangEntry entry) {
+            String field = (key ? entry.getKey() : entry.getValue()).toLowerCase(Locale.ROOT);
+            return glob != null ? glob.matcher(field).matches() : field.contains(text);
+        }
+
+        @Override
+        public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+            if (prefix != null && namespaces != null) {
+                // Entries added since the load have no ordinal, the caller adds them back
+                List<LangEntry> matches = namespaces.collectPrefix(prefix);
+                int[] ordinals = new int[matches.size()];
+                int count = 0;
+                for (LangEntry entry : matches) {
+                    int ord = index.ordinalOfLine(entry.getLineNumber());
+                    if (ord >= 0) {
+                        ordinals[count++] = ord;
+                    }
+                }
+                Arrays.sort(ordinals, 0, count);
+                return Arrays.copyOf(ordinals, count);
+            }
+
+            // The n-gram index covers keys and values, the literal part narrows both fields
+            if (!key && !index.coversValues()) {
+                return null;
+            }
+            return literal.length() >= LangIndex.GRAM_LENGTH ? index.candidates(literal) : null;
+        }
+    }
+
+    /**
+     * modified:true / modified:false
+     */
+    record Modified(boolean modified) implements QueryNode {
+
+        @Override
+        public boolean test(LangEntry entry) {
+            return entry.isModified() == modified;
+        }
+
+        @Override
+        public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+            // Unsaved entries are always in the delta of the index (a rebuild puts them back),
+            // the caller adds those back, so "modified:true" costs the number of changes
+            return modified ? new int[0] : null;
+        }
+    }
+
+    /**
+     * color:#RRGGBB, the value contains a color tag of that color.
+     */
+    record Color(String hex) implements QueryNode {
+
+        static Color of(String text) {
+            String hex = text.toLowerCase(Locale.ROOT);
+            return new Color(hex.startsWith("#") ? hex : "#" + hex);
+        }
+
+        @Override
+        public boolean test(LangEntry entry) {
+            return entry.getValue().toLowerCase(Locale.ROOT).contains("<color is=\"" + hex + "\"");
+        }
+
+        @Override
+        public int[] candidates(LangIndex index, NamespaceTrie namespaces) {
+            return index.coversValues() ? index.candidates(hex) : null;
+        }
+    }
+
+    /**
+     * empty: the value is blank.
+     */
+    record Empty() implements QueryNode {
+
+        @Override
+        public boolean test(LangEntry entry) {
+            return entry.getValue().isBlank();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.islandium.langeditor.service;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves the unsaved changes of the loaded file, and of the files left for another one while
+ * they kept unsaved changes ({@link DocumentCache}), in the background.
+ *
+ * The changed lines are snapshotted under the manager lock (a copy of the line references),
+ * then written on the autosave thread, so editors are never blocked by the disk. Save
+ * requests that arrive while a save is pending are coalesced into it. If the file is edited
+ * while its snapshot is being written, the changes stay unsaved and the next run saves again.
+ * Leaving a file for another one requests a save, so its changes do not wait for the next run.
+ */
+public final class AutosaveService {
+
+    private final LangFileManager manager;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    public AutosaveService(LangFileManager manager) {
+        this.manager = manager;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LangEditor-Autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts saving every {@code intervalSeconds}. Does nothing if the interval is not positive.
+     */
+    public void start(int intervalSeconds) {
+        if (intervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::requestSave, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            manager.addChangeListener(change -> {
+                if (change.kind() == EntryChange.Kind.LOADED) {
+                    requestSave();
+                }
+            });
+        }
+    }
+
+    /**
+     * Asks for a background save. Merged with the pending one if there is already one.
+     */
+    public void requestSave() {
+        if (pending.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                pending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Stops the scheduler and saves the last changes, waiting at most {@code timeoutMillis}.
+     * Returns false if the final save did not complete in time.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        requestSave();
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void flush() {
+        pending.set(false);
+
+        LangFileManager.SaveSnapshot snapshot = manager.snapshotIfDirty();
+        if (snapshot != null) {
+            long start = System.nanoTime();
+            try {
+                if (manager.writeSnapshot(snapshot) && manager.markSaved(snapshot)) {
+                    EditorStats.get().increment("autosave.saved");
+                } else {
+                    EditorStats.get().increment("autosave.superseded");
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                EditorStats.get().increment("autosave.failed");
+            } finally {
+                EditorStats.get().record("autosave.write", start);
+            }
+        }
+
+        for (LangFileManager.SaveSnapshot cached : manager.snapshotCachedDirty()) {
+            long start = System.nanoTime();
+            try {
+                if (manager.writeSnapshot(cached) && manager.markCachedSaved(cached)) {
+                    EditorStats.get().increment("autosave.saved_cached");
+                } else {
+                    EditorStats.get().increment("autosave.superseded");
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                EditorStats.get().increment("autosave.failed");
+            } finally {
+                EditorStats.get().record("autosave.write", start);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.model.LangEntry;
+
+import java.util.*;
+
+/**
+ * Entries added, modified and deleted since the file was loaded or saved.
+ *
+ * Keeps the original key and value of every changed loaded entry, so the unsaved state,
+ * the save and the patch export only look at the changes, never at the whole file.
+ */
+public final class ChangeSet {
+
+    /**
+     * Key and value of a loaded entry before its first change.
+     */
+    public record Original(String key, String value) {}
+
+    private final Set<LangEntry> added = new LinkedHashSet<>();
+    private final Map<LangEntry, Original> modified = new LinkedHashMap<>();
+    private final List<Original> deleted = new ArrayList<>();
+
+    void recordAdd(LangEntry entry) {
+        added.add(entry);
+    }
+
+    /**
+     * Records a change of an entry. Returns true if the entry is back to its original
+     * key and value, in which case it is no longer part of the changes.
+     */
+    boolean recordUpdate(LangEntry entry, String oldKey, String oldValue) {
+        if (added.contains(entry)) {
+            return false;
+        }
+
+        Original original = modified.computeIfAbsent(entry, e -> new Original(oldKey, oldValue));
+        if (original.key().equals(entry.getKey()) && original.value().equals(entry.getValue())) {
+            modified.remove(entry);
+            return true;
+        }
+        return false;
+    }
+
+    void recordDelete(LangEntry entry) {
+        if (added.remove(entry)) {
+            return;
+        }
+        Original original = modified.remove(entry);
+        deleted.add(original != null ? original : new Original(entry.getKey(), entry.getValue()));
+    }
+
+    void clear() {
+        added.clear();
+        modified.clear();
+        deleted.clear();
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+    }
+
+    /**
+     * Gets the number of changed entries.
+     */
+    public int size() {
+        return added.size() + modified.size() + deleted.size();
+    }
+
+    /**
+     * Gets the new entries, in insertion order.
+     */
+    public Set<LangEntry> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /**
+     * Gets the changed loaded entries, in order of first change.
+     */
+    public Set<LangEntry> getModified() {
+        return Collections.unmodifiableSet(modified.keySet());
+    }
+
+    /**
+     * Gets the key and value of a changed loaded entry before its first change, or null.
+     */
+    public Original getOriginal(LangEntry entry) {
+        return modified.get(entry);
+    }
+
+    /**
+     * Gets the key and value of the deleted loaded entries.
+     */
+    public List<Original> getDeleted() {
+        return Collections.unmodifiableList(deleted);
+    }
+}
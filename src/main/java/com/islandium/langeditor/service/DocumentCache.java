@@ -0,0 +1,191 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.index.LangIndex;
+import com.islandium.langeditor.index.NamespaceTrie;
+import com.islandium.langeditor.model.LangDocument;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.model.MappedLangFile;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Files loaded earlier by the {@link LangFileManager}, kept in memory within a byte budget
+ * so that going back to one of them does not read and index it again.
+ *
+ * Sizes are estimated from the file size and the number of entries. When the cached
+ * documents and the loaded one go over the budget, clean documents are evicted least
+ * recently used first. Documents with unsaved changes are never evicted: the autosave
+ * writes them ({@link LangFileManager#snapshotCachedDirty}), after which they can be.
+ * Used under the manager lock only.
+ */
+public final class DocumentCache {
+
+    // -Dlangeditor.documentCache.maxBytes=<octets>
+    public static final long MAX_BYTES = Long.getLong("langeditor.documentCache.maxBytes", 256L * 1024 * 1024);
+
+    // Heap of an entry besides its text: the entry, its strings, its index and trie slots
+    private static final long ENTRY_OVERHEAD = 200;
+    // Heap of an entry of a lazily loaded file: its key and its line offset, values stay mapped
+    private static final long MAPPED_ENTRY_OVERHEAD = 120;
+
+    /**
+     * @param documents cached documents, the loaded one excluded
+     * @param dirty     cached documents with unsaved changes
+     * @param bytes     estimated heap of the cached documents
+     */
+    public record Usage(int documents, int dirty, long bytes, long maxBytes) {}
+
+    /**
+     * Everything the manager holds for one file, as it was when the file was left.
+     */
+    static final class Document {
+        final Path path;
+        final List<LangEntry> entries;
+        final LangDocument document;
+        final MappedLangFile mappedFile;
+        final LangIndex index;
+        final LangEntry[] indexedEntries;
+        final Set<LangEntry> indexDelta;
+        final NamespaceTrie namespaces;
+        final ChangeSet changes;
+        // Size and modification time of the file as read or last saved, -1 if unknown
+        long size;
+        long lastModified;
+        final long bytes;
+        // Version of the manager when the file was left: cached documents do not change, so it
+        // stamps the snapshots of their unsaved changes, after the ones taken while it was loaded
+        long version = -1;
+
+        Document(Path path, List<LangEntry> entries, LangDocument document, MappedLangFile mappedFile, LangIndex index,
+                 LangEntry[] indexedEntries, Set<LangEntry> indexDelta, NamespaceTrie namespaces, ChangeSet changes,
+                 long size, long lastModified) {
+            this.path = path;
+            this.entries = entries;
+            this.document = document;
+            this.mappedFile = mappedFile;
+            this.index = index;
+            this.indexedEntries = indexedEntries;
+            this.indexDelta = indexDelta;
+            this.namespaces = namespaces;
+            this.changes = changes;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.bytes = estimateBytes(mappedFile, Math.max(0, size), entries.size());
+        }
+
+        boolean isDirty() {
+            return !changes.isEmpty();
+        }
+    }
+
+    private final long maxBytes;
+    // Least recently used first
+    private final LinkedHashMap<Path, Document> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    DocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Estimates the heap used by a loaded file: its lines and its keys and values (about twice
+     * its size, the text being held by the lines and by the entries), plus a fixed cost per entry.
+     * Values of a lazily loaded file stay in the mapped file.
+     */
+    static long estimateBytes(MappedLangFile mappedFile, long size, int entryCount) {
+        if (mappedFile != null) {
+            return 4L * mappedFile.getLineCount() + MAPPED_ENTRY_OVERHEAD * entryCount;
+        }
+        return 2 * size + ENTRY_OVERHEAD * entryCount;
+    }
+
+    /**
+     * Removes and returns the document of a file, or null.
+     */
+    Document take(Path path) {
+        Document document = documents.remove(path);
+        if (document != null) {
+            bytes -= document.bytes;
+        }
+        return document;
+    }
+
+    /**
+     * Gets the document of a file without changing its place in the eviction order, or null.
+     */
+    Document get(Path path) {
+        // Map.get would count as a use in an access ordered map, saving a document is not one
+        for (Document document : documents.values()) {
+            if (document.path.equals(path)) {
+                return document;
+            }
+        }
+        return null;
+    }
+
+    boolean contains(Path path) {
+        return documents.containsKey(path);
+    }
+
+    void put(Document document) {
+        Document previous = documents.put(document.path, document);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += document.bytes;
+    }
+
+    /**
+     * Adds a document only if it fits in the budget next to the loaded one without evicting
+     * anything. Returns false if it was not added.
+     */
+    boolean putIfFits(Document document, long loadedBytes) {
+        if (bytes + document.bytes + loadedBytes > maxBytes) {
+            return false;
+        }
+        put(document);
+        return true;
+    }
+
+    /**
+     * Evicts clean documents, least recently used first, until the cached ones and the loaded
+     * one ({@code loadedBytes}) fit in the budget or only dirty documents are left.
+     */
+    void trim(long loadedBytes) {
+        Iterator<Document> it = documents.values().iterator();
+        while (bytes + loadedBytes > maxBytes && it.hasNext()) {
+            Document document = it.next();
+            if (!document.isDirty()) {
+                it.remove();
+                bytes -= document.bytes;
+                EditorStats.get().increment("documents.evicted");
+            }
+        }
+    }
+
+    /**
+     * Files of the cached documents with unsaved changes.
+     */
+    List<Path> getDirtyFiles() {
+        List<Path> dirty = new ArrayList<>();
+        for (Document document : getDirtyDocuments()) {
+            dirty.add(document.path);
+        }
+        return dirty;
+    }
+
+    List<Document> getDirtyDocuments() {
+        List<Document> dirty = new ArrayList<>();
+        for (Document document : documents.values()) {
+            if (document.isDirty()) {
+                dirty.add(document);
+            }
+        }
+        return dirty;
+    }
+
+    Usage usage() {
+        return new Usage(documents.size(), getDirtyFiles().size(), bytes, maxBytes);
+    }
+}
@@ -0,0 +1,67 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters of the editor operations, shown by /langedit stats.
+ *
+ * Timings are recorded with {@code long start = System.nanoTime(); ... record(name, start)}.
+ * Names are dotted, e.g. "manager.load" or "page.main.build".
+ */
+public final class EditorStats {
+
+    private static final EditorStats INSTANCE = new EditorStats();
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private EditorStats() {}
+
+    public static EditorStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} (from System.nanoTime()).
+     */
+    public void record(String name, long startNanos) {
+        timers.computeIfAbsent(name, k -> new LatencyHistogram()).record(System.nanoTime() - startNanos);
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Gets the timers sorted by name.
+     */
+    public Map<String, LatencyHistogram> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    /**
+     * Gets the counter values sorted by name.
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    /**
+     * Resets every timer and counter.
+     */
+    public void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+}
@@ -0,0 +1,42 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.model.LangEntry;
+
+/**
+ * Change published by {@link LangFileManager} to the open pages.
+ *
+ * @param kind   what happened
+ * @param entry  the changed entry, null for LOADED, SAVED and BATCH
+ * @param oldKey key of the entry before an UPDATED change, null otherwise
+ * @param saved  true for a BATCH saved with the file, which then publishes no SAVED of its own
+ */
+public record EntryChange(Kind kind, LangEntry entry, String oldKey, boolean saved) {
+
+    public EntryChange(Kind kind, LangEntry entry, String oldKey) {
+        this(kind, entry, oldKey, false);
+    }
+
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        DELETED,
+        SAVED,
+        LOADED,
+        // Changes of a transaction (or an import), published once they are all applied
+        BATCH
+    }
+
+    /**
+     * True for a change of the value only, which can be shown by refreshing a single row.
+     */
+    public boolean isValueOnly() {
+        return kind == Kind.UPDATED && entry.getKey().equals(oldKey);
+    }
+
+    /**
+     * True when the loaded file was written: a SAVED change, or a BATCH saved with it.
+     */
+    public boolean isFileWritten() {
+        return kind == Kind.SAVED || (kind == Kind.BATCH && saved);
+    }
+}
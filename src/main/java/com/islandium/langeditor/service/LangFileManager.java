@@ -1,131 +1,804 @@
 package com.islandium.langeditor.service;
 
+import com.islandium.langeditor.exchange.EntryReader;
+import com.islandium.langeditor.exchange.EntryWriter;
+import com.islandium.langeditor.exchange.ExchangeFormat;
+import com.islandium.langeditor.index.FuzzyMatcher;
+import com.islandium.langeditor.index.LangIndex;
+import com.islandium.langeditor.index.LangIndexSnapshot;
+import com.islandium.langeditor.index.NamespaceTrie;
+import com.islandium.langeditor.model.LangDocument;
 import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.model.MappedLangFile;
+import com.islandium.langeditor.query.LangQuery;
+import com.islandium.langeditor.util.StringPool;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Manages loading, searching, and saving .lang files.
+ * Thread-safe: pages of players in different worlds may use it concurrently.
  */
 public class LangFileManager {
 
-    private static LangFileManager instance;
+    private static final LangFileManager instance = new LangFileManager();
+
+    // From this size the values are not loaded, they are read from the mapped file when needed
+    public static final long LAZY_LOAD_THRESHOLD = Long.getLong("langeditor.lazyLoadThreshold", 64L * 1024 * 1024);
 
     private Path currentFilePath;
     private List<LangEntry> entries = new ArrayList<>();
-    private List<String> rawLines = new ArrayList<>();
+    private LangDocument document = new LangDocument(List.of());
+    // Set when the current file was loaded lazily
+    private MappedLangFile mappedFile;
+
+    // Search index of the entries as loaded, plus the entries changed since it was built
+    private LangIndex index;
+    private LangEntry[] indexedEntries = new LangEntry[0];
+    private Set<LangEntry> indexDelta = new LinkedHashSet<>();
+    // Ordinals of the delta entries, sorted, and the delta entries the index does not know;
+    // null until a lookup needs them after a change of the delta
+    private int[] deltaOrdinals;
+    private List<LangEntry> deltaUnindexed;
+
+    // Key namespaces, kept in sync with every change
+    private NamespaceTrie namespaces = new NamespaceTrie();
+
+    // Incremented on every load, change and save, lets cursors reuse their counts
+    private long version;
+
+    // Unsaved changes
+    private ChangeSet changes = new ChangeSet();
+
+    // Size and modification time of the current file as read or last saved, -1 if unknown
+    private long loadedSize = -1;
+    private long loadedModified = -1;
+
+    // Files left for another one, kept with their unsaved changes
+    private final DocumentCache documentCache = new DocumentCache(DocumentCache.MAX_BYTES);
+
+    // Serializes the file writes of saveFile and of the autosave, which writes outside of the manager lock
+    private final Object fileLock = new Object();
+    // Version of the last snapshot written, per file: the loaded file and the files left dirty are saved separately
+    private final Map<Path, Long> lastWrittenVersions = new HashMap<>();
+
+    // Open pages following the changes of the other editors
+    private final List<Consumer<EntryChange>> listeners = new CopyOnWriteArrayList<>();
+
+    // Set during a transaction, which publishes a single change at the end
+    private boolean batching;
+
+    // Changed entries beyond which a transaction rebuilds the index instead of keeping a delta
+    private static final int DELTA_REBUILD_THRESHOLD = 1024;
+
+    /**
+     * Result of {@link #compareAndUpdate}.
+     */
+    public enum UpdateResult {
+        UPDATED,
+        // Changed by someone else since the expected version
+        CONFLICT,
+        // Deleted, or the file was reloaded
+        NOT_FOUND,
+        // The new key belongs to another entry
+        KEY_TAKEN
+    }
+
+    /**
+     * Outcome of {@link #importEntries}.
+     *
+     * @param added     new keys
+     * @param updated   existing keys whose value changed
+     * @param unchanged keys already holding the imported value
+     * @param saved     false if the changes were applied but could not be written
+     */
+    public record ImportResult(int added, int updated, int unchanged, boolean saved) {}
 
     private LangFileManager() {}
 
     public static LangFileManager get() {
-        if (instance == null) {
-            instance = new LangFileManager();
-        }
         return instance;
     }
 
     /**
      * Loads a .lang file from the specified path.
+     * The search index is reused from the .langidx sidecar when the file is unchanged.
+     * Files of {@link #LAZY_LOAD_THRESHOLD} bytes or more are loaded lazily ({@link #readMapped}).
+     *
+     * The file left for another one goes to the {@link DocumentCache}, with its unsaved
+     * changes, and is taken back from it when loaded again. Loading the current file again
+     * reads it from the disk, discarding its unsaved changes.
      */
-    public boolean loadFile(String path) {
+    public synchronized boolean loadFile(String path) {
+        long start = System.nanoTime();
         try {
-            currentFilePath = Paths.get(path);
-            if (!Files.exists(currentFilePath)) {
-                return false;
+            Path target = Paths.get(path);
+            Path normalized = target.toAbsolutePath().normalize();
+            boolean reload = currentFilePath != null && currentFilePath.toAbsolutePath().normalize().equals(normalized);
+            if (!reload && (!entries.isEmpty() || !changes.isEmpty())) {
+                documentCache.put(currentDocument());
             }
+            install(new DocumentCache.Document(target, new ArrayList<>(), new LangDocument(List.of()), null, null,
+                    new LangEntry[0], new LinkedHashSet<>(), new NamespaceTrie(), new ChangeSet(), -1, -1));
+            version++;
 
-            entries.clear();
-            rawLines.clear();
-
-            List<String> lines = Files.readAllLines(currentFilePath, StandardCharsets.UTF_8);
-            rawLines.addAll(lines);
-
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
-                    continue;
+            // A clean document is only reused if the file was not changed on the disk since
+            DocumentCache.Document cached = reload ? null : documentCache.take(normalized);
+            if (cached != null && (cached.isDirty() || isUnchanged(cached))) {
+                EditorStats.get().increment("documents.cache_hit");
+                install(cached);
+                currentFilePath = target;
+            } else {
+                if (!reload) {
+                    EditorStats.get().increment("documents.cache_miss");
                 }
-
-                int equalsIndex = line.indexOf('=');
-                if (equalsIndex > 0) {
-                    String key = line.substring(0, equalsIndex);
-                    String value = line.substring(equalsIndex + 1);
-                    entries.add(new LangEntry(i, key, value));
+                if (!Files.exists(target)) {
+                    return false;
                 }
+                install(readDocument(target));
             }
+            documentCache.trim(currentBytes());
 
+            publish(new EntryChange(EntryChange.Kind.LOADED, null, null));
+            RecentFiles.get().touch(currentFilePath);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
             return false;
+        } finally {
+            EditorStats.get().record("manager.load", start);
         }
     }
 
     /**
-     * Saves the current entries back to the file.
+     * Reads a file into the document cache without loading it, so that a later
+     * {@link #loadFile} takes no disk access. Done only if the document fits in the budget
+     * without evicting another one. Returns true if the file was cached.
      */
-    public boolean saveFile() {
-        if (currentFilePath == null) {
+    public boolean preload(Path file) throws IOException {
+        Path normalized = file.toAbsolutePath().normalize();
+        synchronized (this) {
+            if (isCurrentOrCached(normalized)) {
+                return false;
+            }
+        }
+        // Read and indexed outside of the lock, like a sidecar check
+        DocumentCache.Document read = readDocument(normalized);
+        synchronized (this) {
+            return !isCurrentOrCached(normalized) && documentCache.putIfFits(read, currentBytes());
+        }
+    }
+
+    /**
+     * Gets the use of the document cache, for the stats.
+     */
+    public synchronized DocumentCache.Usage getDocumentCacheUsage() {
+        return documentCache.usage();
+    }
+
+    /**
+     * Files left with unsaved changes, kept in the document cache until they are loaded again.
+     */
+    public synchronized List<Path> getCachedDirtyFiles() {
+        return documentCache.getDirtyFiles();
+    }
+
+    private boolean isCurrentOrCached(Path normalized) {
+        return documentCache.contains(normalized)
+                || (currentFilePath != null && currentFilePath.toAbsolutePath().normalize().equals(normalized));
+    }
+
+    private static boolean isUnchanged(DocumentCache.Document cached) {
+        try {
+            return cached.size >= 0 && Files.size(cached.path) == cached.size
+                    && Files.getLastModifiedTime(cached.path).toMillis() == cached.lastModified;
+        } catch (IOException e) {
             return false;
         }
+    }
+
+    private DocumentCache.Document currentDocument() {
+        DocumentCache.Document current = new DocumentCache.Document(currentFilePath.toAbsolutePath().normalize(), entries,
+                document, mappedFile, index, indexedEntries, indexDelta, namespaces, changes, loadedSize, loadedModified);
+        current.version = version;
+        return current;
+    }
+
+    private void install(DocumentCache.Document loaded) {
+        currentFilePath = loaded.path;
+        entries = loaded.entries;
+        document = loaded.document;
+        mappedFile = loaded.mappedFile;
+        index = loaded.index;
+        indexedEntries = loaded.indexedEntries;
+        indexDelta = loaded.indexDelta;
+        deltaOrdinals = null;
+        namespaces = loaded.namespaces;
+        changes = loaded.changes;
+        loadedSize = loaded.size;
+        loadedModified = loaded.lastModified;
+    }
+
+    private long currentBytes() {
+        return DocumentCache.estimateBytes(mappedFile, Math.max(0, loadedSize), entries.size());
+    }
+
+    /**
+     * Reads and indexes a file, without touching the current one.
+     */
+    private static DocumentCache.Document readDocument(Path file) throws IOException {
+        if (Files.size(file) >= LAZY_LOAD_THRESHOLD) {
+            return readMapped(file);
+        }
 
+        byte[] content = Files.readAllBytes(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        long contentHash = LangIndexSnapshot.contentHash(content);
+
+        String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content)).toString();
+        List<String> lines = text.lines().toList();
+
+        LangIndex snapshot = null;
         try {
-            // Update rawLines with modified entries
-            for (LangEntry entry : entries) {
-                if (entry.getLineNumber() >= 0 && entry.getLineNumber() < rawLines.size()) {
-                    rawLines.set(entry.getLineNumber(), entry.toLine());
-                }
+            snapshot = LangIndexSnapshot.read(file, content.length, lastModified, contentHash);
+        } catch (IOException ignored) {
+            // The sidecar is only a cache, rebuild it below
+        }
+
+        List<LangEntry> entries = snapshot != null ? readEntries(snapshot, lines) : null;
+        LangIndex index;
+        if (entries != null) {
+            index = snapshot;
+            EditorStats.get().increment("manager.load.index_hit");
+        } else {
+            EditorStats.get().increment("manager.load.index_build");
+            entries = parseEntries(lines);
+            index = LangIndex.build(entries);
+            try {
+                LangIndexSnapshot.write(file, content.length, lastModified, contentHash, index);
+            } catch (IOException ignored) {
+                // Read-only mods folder, keep the index in memory only
             }
+        }
+        return new DocumentCache.Document(file, entries, new LangDocument(lines), null, index,
+                entries.toArray(new LangEntry[0]), new LinkedHashSet<>(), NamespaceTrie.build(entries), new ChangeSet(),
+                content.length, lastModified);
+    }
 
-            // Add new entries (those with lineNumber = -1)
-            for (LangEntry entry : entries) {
-                if (entry.getLineNumber() == -1) {
-                    rawLines.add(entry.toLine());
-                }
+    /**
+     * Reads a file without its values: only the keys and the line offsets are kept,
+     * values are decoded from the mapped file when an entry is displayed, searched or saved.
+     * The index covers the keys only and is not written to the sidecar.
+     */
+    private static DocumentCache.Document readMapped(Path path) throws IOException {
+        EditorStats.get().increment("manager.load.lazy");
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        MappedLangFile file = MappedLangFile.open(path);
+        StringPool pool = StringPool.get();
+        List<LangEntry> entries = new ArrayList<>();
+        for (int i = 0; i < file.getLineCount(); i++) {
+            String key = file.key(i);
+            if (key != null) {
+                entries.add(new LangEntry(i, pool.internKey(key), file));
             }
+        }
+        return new DocumentCache.Document(path, entries, new LangDocument(file), file, LangIndex.buildKeys(entries),
+                entries.toArray(new LangEntry[0]), new LinkedHashSet<>(), NamespaceTrie.build(entries), new ChangeSet(),
+                Files.size(path), lastModified);
+    }
 
-            Files.write(currentFilePath, rawLines, StandardCharsets.UTF_8);
+    private static List<LangEntry> parseEntries(List<String> lines) {
+        StringPool pool = StringPool.get();
+        List<LangEntry> entries = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+                continue;
+            }
 
-            // Mark all entries as not modified
-            entries.forEach(e -> e.setModified(false));
+            int equalsIndex = line.indexOf('=');
+            if (equalsIndex > 0) {
+                String key = pool.internKey(line.substring(0, equalsIndex));
+                String value = pool.internValue(line.substring(equalsIndex + 1));
+                entries.add(new LangEntry(i, key, value));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Rebuilds the entries from the line/key positions stored in a snapshot.
+     * Returns null if the snapshot does not describe the loaded lines.
+     */
+    private static List<LangEntry> readEntries(LangIndex snapshot, List<String> lines) {
+        StringPool pool = StringPool.get();
+        List<LangEntry> entries = new ArrayList<>(snapshot.getEntryCount());
+        for (int ord = 0; ord < snapshot.getEntryCount(); ord++) {
+            int lineNumber = snapshot.getLineNumber(ord);
+            int keyLength = snapshot.getKeyLength(ord);
+            if (lineNumber < 0 || lineNumber >= lines.size()) {
+                return null;
+            }
 
+            String line = lines.get(lineNumber);
+            if (keyLength <= 0 || keyLength >= line.length() || line.charAt(keyLength) != '=') {
+                return null;
+            }
+            entries.add(new LangEntry(lineNumber,
+                    pool.internKey(line.substring(0, keyLength)),
+                    pool.internValue(line.substring(keyLength + 1))));
+        }
+        return entries;
+    }
+
+    /**
+     * Lines of the current file taken for a save, so they can be written outside of the lock.
+     */
+    public record SaveSnapshot(Path path, List<String> lines, long version) {}
+
+    /**
+     * Saves the current entries back to the file.
+     * Only the changed lines are updated in the document, deleted lines are dropped.
+     */
+    public synchronized boolean saveFile() {
+        if (currentFilePath == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            SaveSnapshot snapshot = takeSnapshot();
+            writeSnapshot(snapshot);
+            markSaved(snapshot);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
+            EditorStats.get().increment("manager.save.failed");
+            return false;
+        } finally {
+            EditorStats.get().record("manager.save", start);
+        }
+    }
+
+    /**
+     * Takes the lines to write if the current file has unsaved changes, or returns null.
+     * Only copies line references, the caller writes them with {@link #writeSnapshot}
+     * without holding the manager.
+     */
+    public synchronized SaveSnapshot snapshotIfDirty() {
+        if (currentFilePath == null || changes.isEmpty()) {
+            return null;
+        }
+        return takeSnapshot();
+    }
+
+    private SaveSnapshot takeSnapshot() {
+        return takeSnapshot(currentFilePath, document, changes, version);
+    }
+
+    private static SaveSnapshot takeSnapshot(Path path, LangDocument document, ChangeSet changes, long version) {
+        for (LangEntry entry : changes.getModified()) {
+            document.setLine(entry.getLineNumber(), entry.toLine());
+        }
+        for (LangEntry entry : changes.getAdded()) {
+            document.setLine(entry.getLineNumber(), entry.toLine());
+        }
+        return new SaveSnapshot(path, document.toLines(), version);
+    }
+
+    /**
+     * Takes the lines to write of every file left with unsaved changes in the document cache.
+     * Written like {@link #snapshotIfDirty}, then marked with {@link #markCachedSaved}. The
+     * version of the loaded file is left alone: nothing it shows changes.
+     */
+    public synchronized List<SaveSnapshot> snapshotCachedDirty() {
+        List<SaveSnapshot> snapshots = new ArrayList<>();
+        for (DocumentCache.Document cached : documentCache.getDirtyDocuments()) {
+            snapshots.add(takeSnapshot(cached.path, cached.document, cached.changes, cached.version));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Marks a file of the document cache as saved once its snapshot is on disk. Returns false
+     * if it was loaded again since the snapshot, its changes are then saved with the loaded file.
+     */
+    public synchronized boolean markCachedSaved(SaveSnapshot snapshot) {
+        DocumentCache.Document cached = documentCache.get(snapshot.path());
+        if (cached == null || !cached.isDirty() || cached.version != snapshot.version()) {
+            return false;
+        }
+        cached.changes.getAdded().forEach(e -> e.setModified(false));
+        cached.changes.getModified().forEach(e -> e.setModified(false));
+        cached.changes.clear();
+        cached.namespaces.clearDirty();
+        cached.document.compact();
+        try {
+            cached.size = Files.size(cached.path);
+            cached.lastModified = Files.getLastModifiedTime(cached.path).toMillis();
+        } catch (IOException e) {
+            cached.size = -1;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a snapshot next to its file and moves it into place, so a crash during the
+     * write never leaves a truncated .lang file. Returns false without writing if a more
+     * recent snapshot was already written.
+     * The lines replaced are recorded in the {@link SaveHistory} of the file.
+     */
+    public boolean writeSnapshot(SaveSnapshot snapshot) throws IOException {
+        synchronized (fileLock) {
+            Path key = snapshot.path().toAbsolutePath().normalize();
+            if (snapshot.version() < lastWrittenVersions.getOrDefault(key, -1L)) {
+                return false;
+            }
+
+            Path temp = snapshot.path().resolveSibling(snapshot.path().getFileName() + ".tmp");
+            Files.write(temp, snapshot.lines(), StandardCharsets.UTF_8);
+            List<String> previous = readPreviousLines(snapshot.path());
+            try {
+                Files.move(temp, snapshot.path(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshot.path(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastWrittenVersions.put(key, snapshot.version());
+
+            if (previous != null) {
+                long start = System.nanoTime();
+                try {
+                    SaveHistory.record(snapshot.path(), previous, snapshot.lines());
+                } catch (IOException e) {
+                    // The file itself is saved, only its history is missing this step
+                    e.printStackTrace();
+                    EditorStats.get().increment("manager.history.failed");
+                } finally {
+                    EditorStats.get().record("manager.history", start);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the lines a save is about to replace, or null if there is no history to keep:
+     * new file, or a file loaded lazily, too large to compare line by line.
+     */
+    private static List<String> readPreviousLines(Path path) {
+        try {
+            if (!Files.isRegularFile(path) || Files.size(path) >= LAZY_LOAD_THRESHOLD) {
+                return null;
+            }
+            return Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lists the saves recorded in the history of the current file, most recent first.
+     */
+    public List<SaveHistory.Entry> getHistory() throws IOException {
+        Path path;
+        synchronized (this) {
+            path = currentFilePath;
+        }
+        if (path == null) {
+            return List.of();
+        }
+        synchronized (fileLock) {
+            return SaveHistory.list(path);
+        }
+    }
+
+    /**
+     * Restores the current file as it was before its last {@code steps} saves, then reloads it.
+     * The rollback is itself a save: it is recorded in the history and can be rolled back.
+     * Refused while there are unsaved changes, which would be lost.
+     */
+    public synchronized void rollback(int steps) throws IOException {
+        if (currentFilePath == null) {
+            throw new IOException("Aucun fichier charge");
+        }
+        if (!changes.isEmpty()) {
+            throw new IOException(changes.size() + " modifications non sauvegardees, sauvegardez-les d'abord");
+        }
+
+        synchronized (fileLock) {
+            List<String> current = Files.readAllLines(currentFilePath, StandardCharsets.UTF_8);
+            List<String> restored = SaveHistory.restore(currentFilePath, current, steps);
+            // A snapshot taken before the rollback must not be written over it
+            version++;
+            writeSnapshot(new SaveSnapshot(currentFilePath, restored, version));
+        }
+        if (!loadFile(currentFilePath.toString())) {
+            throw new IOException("Impossible de recharger le fichier");
+        }
+    }
+
+    /**
+     * Marks the changes as saved once a snapshot is on disk. Returns false, keeping them
+     * unsaved, if the file was changed or reloaded since the snapshot was taken.
+     */
+    public synchronized boolean markSaved(SaveSnapshot snapshot) {
+        if (!snapshot.path().equals(currentFilePath) || snapshot.version() != version) {
             return false;
         }
+
+        changes.getAdded().forEach(e -> e.setModified(false));
+        changes.getModified().forEach(e -> e.setModified(false));
+        changes.clear();
+        namespaces.clearDirty();
+        document.compact();
+        // Saved changes no longer need the delta: fold them into the index
+        if (!indexDelta.isEmpty()) {
+            rebuildIndex();
+        }
+        try {
+            loadedSize = Files.size(currentFilePath);
+            loadedModified = Files.getLastModifiedTime(currentFilePath).toMillis();
+        } catch (IOException e) {
+            // Unknown stamps: the document will not be reused from the cache
+            loadedSize = -1;
+        }
+        version++;
+        publish(new EntryChange(EntryChange.Kind.SAVED, null, null));
+        return true;
     }
 
     /**
      * Searches entries by query string.
      */
-    public List<LangEntry> search(String query) {
-        if (query == null || query.isEmpty()) {
-            return new ArrayList<>(entries);
+    public synchronized List<LangEntry> search(String query) {
+        return search(LangQuery.parse(query));
+    }
+
+    /**
+     * Searches with a compiled query. Clauses the index can answer narrow the scan,
+     * the remaining ones are evaluated on the candidates only.
+     */
+    public synchronized List<LangEntry> search(LangQuery query) {
+        long start = System.nanoTime();
+        try {
+            if (query.isMatchAll()) {
+                return new ArrayList<>(entries);
+            }
+
+            int[] candidates = index != null ? query.candidates(index, namespaces) : null;
+            if (candidates == null) {
+                return entries.stream()
+                        .filter(query::matches)
+                        .collect(Collectors.toList());
+            }
+            return collectIndexed(candidates, query::matches, Integer.MAX_VALUE);
+        } finally {
+            EditorStats.get().record("manager.search", start);
+        }
+    }
+
+    /**
+     * Opens a cursor over the results of a query. Counting and paging through it
+     * never copy the whole result list.
+     */
+    public ResultCursor cursor(LangQuery query) {
+        return new ResultCursor(this, query);
+    }
+
+    /**
+     * Incremented on every load, change and save of the current file.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Counts the results of a query without collecting them.
+     */
+    synchronized int count(LangQuery query) {
+        if (query.isMatchAll()) {
+            return entries.size();
+        }
+        int[] count = new int[1];
+        visitMatches(query, entry -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Gets at most {@code limit} results of a query starting at the {@code offset}-th one,
+     * stopping the scan as soon as the window is full.
+     */
+    synchronized List<LangEntry> window(LangQuery query, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return List.of();
+        }
+        if (query.isMatchAll()) {
+            int from = Math.min(offset, entries.size());
+            return List.copyOf(entries.subList(from, Math.min(entries.size(), from + limit)));
+        }
+
+        List<LangEntry> window = new ArrayList<>(limit);
+        int[] skipped = new int[1];
+        visitMatches(query, entry -> {
+            if (skipped[0] < offset) {
+                skipped[0]++;
+                return true;
+            }
+            window.add(entry);
+            return window.size() < limit;
+        });
+        return window;
+    }
+
+    /**
+     * Visits the results of a query in file order until the visitor returns false.
+     */
+    private void visitMatches(LangQuery query, Predicate<LangEntry> visitor) {
+        int[] candidates = index != null ? query.candidates(index, namespaces) : null;
+        if (candidates == null) {
+            for (LangEntry entry : entries) {
+                if (query.matches(entry) && !visitor.test(entry)) {
+                    return;
+                }
+            }
+            return;
         }
+        visitIndexed(candidates, query::matches, visitor);
+    }
+
+    /**
+     * Typo-tolerant search on keys. Returns at most {@code limit} entries, best matches first
+     * (fewest edits, then shortest key).
+     */
+    public synchronized List<LangEntry> fuzzySearch(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (query == null || query.isEmpty()) {
+                return new ArrayList<>(entries);
+            }
+
+            FuzzyMatcher matcher = new FuzzyMatcher(query);
+            int[] candidates = index != null ? index.fuzzyCandidates(matcher.getPattern(), matcher.getMaxErrors()) : null;
+            Collection<LangEntry> scanned = candidates != null
+                    ? collectIndexed(candidates, e -> true, Integer.MAX_VALUE)
+                    : entries;
+
+            // Bounded heap keeping the best `limit` matches, worst on top
+            Comparator<ScoredEntry> byRelevance = Comparator.<ScoredEntry>comparingInt(s -> s.distance)
+                    .thenComparingInt(s -> s.entry.getKey().length())
+                    .thenComparing(s -> s.entry.getKey());
+            PriorityQueue<ScoredEntry> top = new PriorityQueue<>(byRelevance.reversed());
+            for (LangEntry entry : scanned) {
+                int distance = matcher.distance(entry.getKey());
+                if (distance < 0) {
+                    continue;
+                }
+                ScoredEntry scored = new ScoredEntry(entry, distance);
+                if (top.size() < limit) {
+                    top.add(scored);
+                } else if (byRelevance.compare(scored, top.peek()) < 0) {
+                    top.poll();
+                    top.add(scored);
+                }
+            }
 
-        return entries.stream()
-                .filter(e -> e.matches(query))
-                .collect(Collectors.toList());
+            List<ScoredEntry> sorted = new ArrayList<>(top);
+            sorted.sort(byRelevance);
+            List<LangEntry> results = new ArrayList<>(sorted.size());
+            for (ScoredEntry scored : sorted) {
+                results.add(scored.entry);
+            }
+            return results;
+        } finally {
+            EditorStats.get().record("manager.fuzzy_search", start);
+        }
     }
 
+    private record ScoredEntry(LangEntry entry, int distance) {}
+
     /**
      * Gets an entry by its key.
      */
-    public Optional<LangEntry> getEntry(String key) {
-        return entries.stream()
-                .filter(e -> e.getKey().equals(key))
-                .findFirst();
+    public synchronized Optional<LangEntry> getEntry(String key) {
+        long start = System.nanoTime();
+        try {
+            if (index == null) {
+                return entries.stream()
+                        .filter(e -> e.getKey().equals(key))
+                        .findFirst();
+            }
+
+            List<LangEntry> found = collectIndexed(index.keyCandidates(key), e -> e.getKey().equals(key), 1);
+            return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+        } finally {
+            EditorStats.get().record("manager.get_entry", start);
+        }
+    }
+
+    /**
+     * Resolves index candidates to entries in file order. The candidates are completed
+     * with the entries changed since the index was built, then filtered.
+     */
+    private List<LangEntry> collectIndexed(int[] candidates, Predicate<LangEntry> filter, int limit) {
+        List<LangEntry> results = new ArrayList<>();
+        if (limit > 0) {
+            visitIndexed(candidates, filter, entry -> {
+                results.add(entry);
+                return results.size() < limit;
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Same as {@link #collectIndexed} but hands the matches to a visitor, until it returns false.
+     */
+    private void visitIndexed(int[] candidates, Predicate<LangEntry> filter, Predicate<LangEntry> visitor) {
+        // Loaded entries changed since the index was built may match without being candidates
+        if (deltaOrdinals == null) {
+            int[] ordinals = new int[indexDelta.size()];
+            int count = 0;
+            List<LangEntry> unindexed = new ArrayList<>();
+            for (LangEntry entry : indexDelta) {
+                int ord = index.ordinalOfLine(entry.getLineNumber());
+                if (ord >= 0) {
+                    ordinals[count++] = ord;
+                } else {
+                    unindexed.add(entry);
+                }
+            }
+            Arrays.sort(ordinals, 0, count);
+            deltaOrdinals = Arrays.copyOf(ordinals, count);
+            deltaUnindexed = unindexed;
+        }
+        int[] changed = deltaOrdinals;
+        int changedCount = changed.length;
+        List<LangEntry> unindexed = deltaUnindexed;
+
+        int i = 0;
+        int j = 0;
+        int last = -1;
+        while (i < candidates.length || j < changedCount) {
+            int ord;
+            if (j >= changedCount || (i < candidates.length && candidates[i] <= changed[j])) {
+                ord = candidates[i++];
+            } else {
+                ord = changed[j++];
+            }
+            if (ord == last) {
+                continue;
+            }
+            last = ord;
+
+            LangEntry entry = indexedEntries[ord];
+            if (entry != null && filter.test(entry) && !visitor.test(entry)) {
+                return;
+            }
+        }
+
+        // Entries added since the index was built come after the loaded ones, in insertion order
+        for (LangEntry entry : unindexed) {
+            if (filter.test(entry) && !visitor.test(entry)) {
+                return;
+            }
+        }
     }
 
     /**
      * Gets an entry by index.
      */
-    public Optional<LangEntry> getEntryByIndex(int index) {
+    public synchronized Optional<LangEntry> getEntryByIndex(int index) {
         if (index >= 0 && index < entries.size()) {
             return Optional.of(entries.get(index));
         }
@@ -135,83 +808,555 @@ public class LangFileManager {
     /**
      * Updates an existing entry.
      */
-    public boolean updateEntry(String originalKey, String newKey, String newValue) {
-        Optional<LangEntry> entryOpt = getEntry(originalKey);
-        if (entryOpt.isPresent()) {
-            LangEntry entry = entryOpt.get();
-            entry.setKey(newKey);
-            entry.setValue(newValue);
-            return true;
+    public synchronized boolean updateEntry(String originalKey, String newKey, String newValue) {
+        long start = System.nanoTime();
+        try {
+            Optional<LangEntry> entryOpt = getEntry(originalKey);
+            if (entryOpt.isPresent()) {
+                applyUpdate(entryOpt.get(), newKey, newValue);
+                return true;
+            }
+            return false;
+        } finally {
+            EditorStats.get().record("manager.update", start);
+        }
+    }
+
+    /**
+     * Updates an entry only if nobody changed it since the editor read {@code expectedVersion}
+     * (see {@link LangEntry#getVersion()}), so two editors never silently overwrite each other.
+     */
+    public synchronized UpdateResult compareAndUpdate(LangEntry entry, long expectedVersion, String newKey, String newValue) {
+        long start = System.nanoTime();
+        try {
+            if (getEntry(entry.getKey()).orElse(null) != entry) {
+                return UpdateResult.NOT_FOUND;
+            }
+            if (entry.getVersion() != expectedVersion) {
+                EditorStats.get().increment("manager.update.conflict");
+                return UpdateResult.CONFLICT;
+            }
+            if (!newKey.equals(entry.getKey()) && getEntry(newKey).isPresent()) {
+                return UpdateResult.KEY_TAKEN;
+            }
+            applyUpdate(entry, newKey, newValue);
+            return UpdateResult.UPDATED;
+        } finally {
+            EditorStats.get().record("manager.update", start);
         }
-        return false;
+    }
+
+    private void applyUpdate(LangEntry entry, String newKey, String newValue) {
+        String oldKey = entry.getKey();
+        String oldValue = entry.getValue();
+        boolean wasModified = entry.isModified();
+        entry.setKey(newKey);
+        entry.setValue(newValue);
+        if (changes.recordUpdate(entry, oldKey, oldValue)) {
+            entry.setModified(false);
+        }
+        if (indexDelta.add(entry)) {
+            deltaOrdinals = null;
+        }
+        namespaces.update(entry, oldKey, wasModified);
+        if (!batching) {
+            maybeRebuildIndex();
+        }
+        version++;
+        publish(new EntryChange(EntryChange.Kind.UPDATED, entry, oldKey));
     }
 
     /**
      * Adds a new entry.
      */
-    public LangEntry addEntry(String key, String value) {
-        // Check if key already exists
-        if (getEntry(key).isPresent()) {
-            return null;
+    public synchronized LangEntry addEntry(String key, String value) {
+        long start = System.nanoTime();
+        try {
+            // Check if key already exists
+            if (getEntry(key).isPresent()) {
+                return null;
+            }
+            return insertEntry(key, value);
+        } finally {
+            EditorStats.get().record("manager.add", start);
+        }
+    }
+
+    private LangEntry insertEntry(String key, String value) {
+        // Next to its namespace siblings, or at the end of the file for a new namespace
+        String line = key + "=" + value;
+        NamespaceTrie.Neighbour neighbour = namespaces.findNeighbour(key);
+        int lineId;
+        if (neighbour == null) {
+            lineId = document.append(line);
+        } else if (neighbour.after()) {
+            lineId = document.insertAfter(neighbour.entry().getLineNumber(), line);
+        } else {
+            lineId = document.insertBefore(neighbour.entry().getLineNumber(), line);
         }
 
-        LangEntry entry = new LangEntry(-1, key, value);
+        LangEntry entry = new LangEntry(lineId, key, value);
         entry.setModified(true);
         entries.add(entry);
+        indexDelta.add(entry);
+        deltaOrdinals = null;
+        changes.recordAdd(entry);
+        namespaces.add(entry);
+        version++;
+        publish(new EntryChange(EntryChange.Kind.ADDED, entry, null));
         return entry;
     }
 
     /**
      * Deletes an entry by key.
      */
-    public boolean deleteEntry(String key) {
-        Optional<LangEntry> entryOpt = getEntry(key);
-        if (entryOpt.isPresent()) {
-            LangEntry entry = entryOpt.get();
-            entries.remove(entry);
+    public synchronized boolean deleteEntry(String key) {
+        long start = System.nanoTime();
+        try {
+            Optional<LangEntry> entryOpt = getEntry(key);
+            if (entryOpt.isPresent()) {
+                entries.remove(entryOpt.get());
+                removeEntry(entryOpt.get());
+                return true;
+            }
+            return false;
+        } finally {
+            EditorStats.get().record("manager.delete", start);
+        }
+    }
 
-            // Remove from rawLines if it has a valid line number
-            if (entry.getLineNumber() >= 0 && entry.getLineNumber() < rawLines.size()) {
-                rawLines.set(entry.getLineNumber(), ""); // Mark as empty instead of removing to preserve line numbers
+    /**
+     * Removes an entry from everything but the entry list, which the caller updates.
+     */
+    private void removeEntry(LangEntry entry) {
+        forgetIndexed(entry);
+        changes.recordDelete(entry);
+        namespaces.remove(entry);
+        version++;
+        document.delete(entry.getLineNumber());
+        publish(new EntryChange(EntryChange.Kind.DELETED, entry, null));
+    }
+
+    /**
+     * Follows the changes made to the loaded file. Listeners are called under the manager
+     * lock, right after each change: they must only hand the change over to their own
+     * thread (e.g. the world of the page) and return.
+     */
+    public void addChangeListener(Consumer<EntryChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Consumer<EntryChange> listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(EntryChange change) {
+        if (batching) {
+            return;
+        }
+        for (Consumer<EntryChange> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
             }
-            return true;
         }
-        return false;
+    }
+
+    /**
+     * Rebuilds the index once the delta holds more than {@link #DELTA_REBUILD_THRESHOLD} entries
+     * a rebuild would take out of it: the unsaved ones stay in the delta anyway.
+     */
+    private void maybeRebuildIndex() {
+        int unsaved = changes.getAdded().size() + changes.getModified().size();
+        if (indexDelta.size() - unsaved > DELTA_REBUILD_THRESHOLD) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Indexes the entries as they are now. The unsaved entries are put back in the delta:
+     * "modified:true" finds its results there, not in the index.
+     */
+    private void rebuildIndex() {
+        index = mappedFile != null ? LangIndex.buildKeys(entries) : LangIndex.build(entries);
+        indexedEntries = entries.toArray(new LangEntry[0]);
+        indexDelta.clear();
+        indexDelta.addAll(changes.getAdded());
+        indexDelta.addAll(changes.getModified());
+        deltaOrdinals = null;
+    }
+
+    private void forgetIndexed(LangEntry entry) {
+        if (indexDelta.remove(entry)) {
+            deltaOrdinals = null;
+        }
+        if (index != null && entry.getLineNumber() >= 0) {
+            int ord = index.ordinalOfLine(entry.getLineNumber());
+            if (ord >= 0 && indexedEntries[ord] == entry) {
+                indexedEntries[ord] = null;
+            }
+        }
+    }
+
+    /**
+     * Lists the direct children of a key namespace ("" for the top level), with their
+     * entry and modified counts.
+     */
+    public synchronized List<NamespaceTrie.Child> browseNamespace(String namespace) {
+        return namespaces.children(namespace);
+    }
+
+    /**
+     * Gets the entries whose key starts with the prefix, in key order.
+     */
+    public synchronized List<LangEntry> getEntriesWithPrefix(String prefix) {
+        return namespaces.collectPrefix(prefix);
+    }
+
+    /**
+     * Completes a key prefix to its next namespace segment, for the command completion.
+     */
+    public synchronized List<String> completeKey(String prefix, int limit) {
+        return namespaces.complete(prefix, limit);
+    }
+
+    /**
+     * Gets the number of entries, and of modified entries, under a key namespace.
+     */
+    public synchronized int getNamespaceCount(String namespace) {
+        return namespaces.getCount(namespace);
+    }
+
+    public synchronized int getNamespaceDirtyCount(String namespace) {
+        return namespaces.getDirtyCount(namespace);
     }
 
     /**
      * Gets all entries.
      */
-    public List<LangEntry> getAllEntries() {
+    public synchronized List<LangEntry> getAllEntries() {
         return new ArrayList<>(entries);
     }
 
+    /**
+     * Gets a read-only live view of the entries, without copying them.
+     * Only iterate it from a thread that does not race with edits, otherwise use {@link #forEachEntry}.
+     */
+    public List<LangEntry> getEntriesView() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Visits every entry in file order while holding the manager lock, without copying them.
+     */
+    public synchronized void forEachEntry(Consumer<LangEntry> action) {
+        entries.forEach(action);
+    }
+
     /**
      * Gets the total entry count.
      */
-    public int getEntryCount() {
+    public synchronized int getEntryCount() {
         return entries.size();
     }
 
     /**
      * Gets the current file path.
      */
-    public String getCurrentFilePath() {
+    public synchronized String getCurrentFilePath() {
         return currentFilePath != null ? currentFilePath.toString() : null;
     }
 
+    /**
+     * Gets the mapped file when the current file was loaded lazily, or null.
+     */
+    public synchronized MappedLangFile getMappedFile() {
+        return mappedFile;
+    }
+
     /**
      * Gets the current file name.
      */
-    public String getCurrentFileName() {
+    public synchronized String getCurrentFileName() {
         return currentFilePath != null ? currentFilePath.getFileName().toString() : null;
     }
 
     /**
      * Checks if there are unsaved changes.
      */
-    public boolean hasUnsavedChanges() {
-        return entries.stream().anyMatch(LangEntry::isModified);
+    public synchronized boolean hasUnsavedChanges() {
+        return !changes.isEmpty();
+    }
+
+    /**
+     * Gets the number of added, modified and deleted entries since the last save.
+     */
+    public synchronized int getUnsavedChangeCount() {
+        return changes.size();
+    }
+
+    /**
+     * Builds a patch of the unsaved changes, to review them or apply them to another copy of the file.
+     */
+    public synchronized LangPatch createPatch() {
+        return LangPatch.of(changes);
+    }
+
+    /**
+     * Applies a patch to the loaded file, as one transaction. The changes stay unsaved.
+     * A change is skipped if the file already contains it, and is a conflict if the
+     * current value is neither the old nor the new value of the patch.
+     */
+    public synchronized LangPatch.Result applyPatch(LangPatch patch) {
+        Map<String, String> values = new HashMap<>(entries.size() * 2);
+        for (LangEntry entry : entries) {
+            values.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+
+        int skipped = 0;
+        List<String> conflicts = new ArrayList<>();
+        LangTransaction transaction = new LangTransaction();
+        for (LangPatch.Change change : patch.getChanges()) {
+            String currentValue = values.get(change.key());
+            if (Objects.equals(currentValue, change.newValue())) {
+                skipped++;
+            } else if (!Objects.equals(currentValue, change.oldValue())) {
+                conflicts.add(change.key());
+            } else {
+                try {
+                    if (change.newValue() == null) {
+                        transaction.delete(change.key());
+                    } else {
+                        transaction.put(change.key(), change.newValue());
+                    }
+                } catch (IllegalArgumentException e) {
+                    conflicts.add(change.key());
+                }
+            }
+        }
+
+        if (!transaction.isEmpty()) {
+            apply(transaction, false);
+        }
+        return new LangPatch.Result(transaction.size(), skipped, conflicts);
+    }
+
+    /**
+     * Writes the entries of the loaded file to an exchange file, streaming them in file order.
+     * Returns the number of entries written.
+     */
+    public synchronized int exportEntries(Path path, ExchangeFormat format) throws IOException {
+        long start = System.nanoTime();
+        try (EntryWriter writer = format.openWriter(path)) {
+            for (LangEntry entry : entries) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+            return entries.size();
+        } finally {
+            EditorStats.get().record("manager.export", start);
+        }
+    }
+
+    /**
+     * Imports an exchange file into the loaded file as one batch, then saves once.
+     * Existing keys get the imported value, new keys are added next to their namespace,
+     * keys missing from the file are kept.
+     *
+     * The file is read twice: a validation pass without the lock, so a malformed file
+     * changes nothing, then the apply pass, a transaction of PUT operations read one by one.
+     * Neither keeps more than one imported entry in memory. The open pages get a single
+     * change at the end.
+     */
+    public ImportResult importEntries(Path path, ExchangeFormat format) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Checked outside of the lock: a PUT cannot fail once its key is valid
+            try (EntryReader reader = format.openReader(path)) {
+                EntryReader.Translation translation;
+                while ((translation = reader.next()) != null) {
+                    LangTransaction.checkKey(translation.key());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+
+            LangTransaction.Result result;
+            try (EntryReader reader = format.openReader(path)) {
+                result = apply(() -> {
+                    EntryReader.Translation translation = reader.next();
+                    return translation != null
+                            ? new LangTransaction.Operation(LangTransaction.Kind.PUT, translation.key(), null, translation.value())
+                            : null;
+                }, true);
+            } catch (IllegalStateException e) {
+                throw new IOException(e.getMessage());
+            }
+            return new ImportResult(result.added(), result.updated(), result.unchanged(), result.saved());
+        } finally {
+            EditorStats.get().record("manager.import", start);
+        }
+    }
+
+    /**
+     * Operations of a transaction read one at a time, so that a large one is never held whole.
+     */
+    private interface OperationSource {
+
+        /**
+         * Returns the next operation, or null after the last one.
+         */
+        LangTransaction.Operation next() throws IOException;
+    }
+
+    /**
+     * Applies a transaction to the loaded file, all of its operations or none.
+     *
+     * The operations are checked first against the keys of the file (a RENAME or DELETE of a
+     * missing key, a RENAME onto a used key) and nothing is applied if one fails. They are then
+     * applied with a single key table, the index is updated once, the listeners get a single
+     * {@link EntryChange.Kind#BATCH} change, and the file is saved once if {@code save} is set.
+     *
+     * @throws IllegalArgumentException if an operation cannot be applied, with the key at fault
+     * @throws IllegalStateException    if no file is loaded
+     */
+    public synchronized LangTransaction.Result apply(LangTransaction transaction, boolean save) {
+        if (currentFilePath == null) {
+            throw new IllegalStateException("Aucun fichier charge");
+        }
+        Map<String, LangEntry> byKey = keyTable();
+        checkTransaction(transaction, byKey);
+
+        Iterator<LangTransaction.Operation> operations = transaction.getOperations().iterator();
+        try {
+            return apply(() -> operations.hasNext() ? operations.next() : null, byKey, save);
+        } catch (IOException e) {
+            // A transaction in memory cannot fail to read
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies operations that were checked already. Only the current operation is held: a
+     * read error stops the batch, the operations applied before it stay, unsaved.
+     */
+    private synchronized LangTransaction.Result apply(OperationSource operations, boolean save) throws IOException {
+        if (currentFilePath == null) {
+            throw new IllegalStateException("Aucun fichier charge");
+        }
+        return apply(operations, keyTable(), save);
+    }
+
+    // One lookup table for the batch instead of an index query per key
+    private Map<String, LangEntry> keyTable() {
+        Map<String, LangEntry> byKey = new HashMap<>(entries.size() * 2);
+        for (LangEntry entry : entries) {
+            byKey.putIfAbsent(entry.getKey(), entry);
+        }
+        return byKey;
+    }
+
+    private LangTransaction.Result apply(OperationSource operations, Map<String, LangEntry> byKey, boolean save) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int added = 0;
+            int updated = 0;
+            int renamed = 0;
+            int deleted = 0;
+            int unchanged = 0;
+            Set<LangEntry> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            boolean complete = false;
+            boolean saved = !save;
+            // Also covers the save: its SAVED is part of the single BATCH change
+            batching = true;
+            try {
+                LangTransaction.Operation operation;
+                while ((operation = operations.next()) != null) {
+                    switch (operation.kind()) {
+                        case PUT -> {
+                            LangEntry entry = byKey.get(operation.key());
+                            if (entry == null) {
+                                byKey.put(operation.key(), insertEntry(operation.key(), operation.value()));
+                                added++;
+                            } else if (entry.getValue().equals(operation.value())) {
+                                unchanged++;
+                            } else {
+                                applyUpdate(entry, entry.getKey(), operation.value());
+                                updated++;
+                            }
+                        }
+                        case RENAME -> {
+                            if (operation.key().equals(operation.newKey())) {
+                                unchanged++;
+                                continue;
+                            }
+                            LangEntry entry = byKey.remove(operation.key());
+                            applyUpdate(entry, operation.newKey(), entry.getValue());
+                            byKey.put(operation.newKey(), entry);
+                            renamed++;
+                        }
+                        case DELETE -> {
+                            LangEntry entry = byKey.remove(operation.key());
+                            removeEntry(entry);
+                            removed.add(entry);
+                            deleted++;
+                        }
+                    }
+                }
+                complete = true;
+            } finally {
+                if (!removed.isEmpty()) {
+                    entries.removeIf(removed::contains);
+                }
+                maybeRebuildIndex();
+                int changed = added + updated + renamed + deleted;
+                // Stopped by a read error: the pages still get the changes applied so far, unsaved
+                if (complete && save) {
+                    saved = changed == 0 || saveFile();
+                }
+                batching = false;
+                if (changed > 0) {
+                    publish(new EntryChange(EntryChange.Kind.BATCH, null, null, save && saved));
+                }
+            }
+            return new LangTransaction.Result(added, updated, renamed, deleted, unchanged, saved);
+        } finally {
+            EditorStats.get().record("manager.transaction", start);
+        }
+    }
+
+    /**
+     * Runs the operations on the key presence only, so a failing operation stops the
+     * transaction before anything is changed.
+     */
+    private static void checkTransaction(LangTransaction transaction, Map<String, LangEntry> byKey) {
+        Map<String, Boolean> present = new HashMap<>();
+        int number = 0;
+        for (LangTransaction.Operation operation : transaction.getOperations()) {
+            number++;
+            String key = operation.key();
+            boolean exists = present.getOrDefault(key, byKey.containsKey(key));
+            switch (operation.kind()) {
+                case PUT -> present.put(key, true);
+                case RENAME -> {
+                    if (!exists) {
+                        throw new IllegalArgumentException("Cle introuvable: " + key + " (operation " + number + ")");
+                    }
+                    String newKey = operation.newKey();
+                    if (!newKey.equals(key) && present.getOrDefault(newKey, byKey.containsKey(newKey))) {
+                        throw new IllegalArgumentException("Cle deja utilisee: " + newKey + " (operation " + number + ")");
+                    }
+                    present.put(key, false);
+                    present.put(newKey, true);
+                }
+                case DELETE -> {
+                    if (!exists) {
+                        throw new IllegalArgumentException("Cle introuvable: " + key + " (operation " + number + ")");
+                    }
+                    present.put(key, false);
+                }
+            }
+        }
     }
 
     /**
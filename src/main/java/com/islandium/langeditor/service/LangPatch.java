@@ -0,0 +1,156 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.model.LangEntry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Reviewable patch of the unsaved changes of a .lang file, in a diff-like text format:
+ *
+ *   # islandium-lang patch
+ *   # source: server.lang
+ *   -items.sword.name=Epee
+ *   +items.sword.name=Epee de fer
+ *   +items.shield.name=Bouclier
+ *   -items.old.name=Ancien
+ *
+ * A key with a "-" and a "+" line is modified, a key with only "+" is added and a key
+ * with only "-" is deleted. The old values let the patch detect conflicts when it is
+ * applied to another copy of the file.
+ */
+public final class LangPatch {
+
+    public static final String EXTENSION = ".langpatch";
+
+    private static final String HEADER = "# islandium-lang patch";
+
+    /**
+     * Change of one key. oldValue is null for an addition, newValue is null for a deletion.
+     */
+    public record Change(String key, String oldValue, String newValue) {}
+
+    /**
+     * Outcome of {@link LangFileManager#applyPatch(LangPatch)}.
+     *
+     * @param applied   changes applied
+     * @param skipped   changes already present in the file
+     * @param conflicts keys whose current value differs from the value expected by the patch
+     */
+    public record Result(int applied, int skipped, List<String> conflicts) {}
+
+    private final List<Change> changes;
+
+    private LangPatch(List<Change> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    /**
+     * Builds the patch of a changeset. A renamed entry becomes a deletion of its old key
+     * and an addition of its new key.
+     */
+    public static LangPatch of(ChangeSet changeSet) {
+        PatchBuilder builder = new PatchBuilder();
+        for (ChangeSet.Original original : changeSet.getDeleted()) {
+            builder.remove(original.key(), original.value());
+        }
+        for (LangEntry entry : changeSet.getModified()) {
+            ChangeSet.Original original = changeSet.getOriginal(entry);
+            builder.remove(original.key(), original.value());
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        for (LangEntry entry : changeSet.getAdded()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    public static LangPatch read(Path path) throws IOException {
+        PatchBuilder builder = new PatchBuilder();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int equalsIndex = line.indexOf('=');
+                char op = line.charAt(0);
+                if ((op != '+' && op != '-') || equalsIndex < 2) {
+                    throw new IOException("Ligne " + lineNumber + " invalide: " + line);
+                }
+
+                String key = line.substring(1, equalsIndex);
+                String value = line.substring(equalsIndex + 1);
+                if (op == '-') {
+                    builder.remove(key, value);
+                } else {
+                    builder.add(key, value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public void write(Path path, String sourceName) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            if (sourceName != null) {
+                writer.write("# source: " + sourceName);
+                writer.newLine();
+            }
+            for (Change change : changes) {
+                if (change.oldValue() != null) {
+                    writer.write("-" + change.key() + "=" + change.oldValue());
+                    writer.newLine();
+                }
+                if (change.newValue() != null) {
+                    writer.write("+" + change.key() + "=" + change.newValue());
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Merges the "-" and "+" of a same key into one change, in order of first appearance.
+     */
+    private static final class PatchBuilder {
+        private final Map<String, String[]> byKey = new LinkedHashMap<>();
+
+        void remove(String key, String value) {
+            byKey.computeIfAbsent(key, k -> new String[2])[0] = value;
+        }
+
+        void add(String key, String value) {
+            byKey.computeIfAbsent(key, k -> new String[2])[1] = value;
+        }
+
+        LangPatch build() {
+            List<Change> changes = new ArrayList<>(byKey.size());
+            byKey.forEach((key, values) -> {
+                // Deleted then re-added with the same value: nothing to apply
+                if (!Objects.equals(values[0], values[1])) {
+                    changes.add(new Change(key, values[0], values[1]));
+                }
+            });
+            return new LangPatch(changes);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.islandium.langeditor.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Operations applied together to the loaded file by {@link LangFileManager#apply}: all of
+ * them or none, under a single lock, with one index update, one change event and at most
+ * one save.
+ *
+ * Operations apply in order: a key renamed by an operation is known by its new key in the
+ * following ones. Keys are checked when an operation is added.
+ *
+ * <pre>
+ * LangTransaction transaction = new LangTransaction()
+ *         .put("items.sword.name", "Epee")
+ *         .rename("items.old.name", "items.legacy.name")
+ *         .delete("items.unused.name");
+ * manager.apply(transaction, true);
+ * </pre>
+ */
+public final class LangTransaction {
+
+    public enum Kind {
+        // Sets the value of a key, adding it if missing
+        PUT,
+        // Changes the key of an entry, keeping its value
+        RENAME,
+        DELETE
+    }
+
+    /**
+     * @param newKey the new key of a RENAME, null otherwise
+     * @param value  the value of a PUT, null otherwise
+     */
+    public record Operation(Kind kind, String key, String newKey, String value) {}
+
+    /**
+     * Outcome of {@link LangFileManager#apply}.
+     *
+     * @param unchanged PUT operations setting the current value, and renames to the same key
+     * @param saved     false if a save was asked and failed, the changes then stay unsaved
+     */
+    public record Result(int added, int updated, int renamed, int deleted, int unchanged, boolean saved) {
+
+        public int changed() {
+            return added + updated + renamed + deleted;
+        }
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public LangTransaction put(String key, String value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Valeur manquante: " + key);
+        }
+        operations.add(new Operation(Kind.PUT, key, null, value));
+        return this;
+    }
+
+    public LangTransaction rename(String key, String newKey) {
+        checkKey(key);
+        checkKey(newKey);
+        operations.add(new Operation(Kind.RENAME, key, newKey, null));
+        return this;
+    }
+
+    public LangTransaction delete(String key) {
+        checkKey(key);
+        operations.add(new Operation(Kind.DELETE, key, null, null));
+        return this;
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Rejects a key that would not read back as the same entry once saved.
+     */
+    static void checkKey(String key) {
+        if (key == null || key.isEmpty() || key.indexOf('=') >= 0 || key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0
+                || key.startsWith("#") || key.startsWith("//") || !key.strip().equals(key)) {
+            throw new IllegalArgumentException("Cle invalide: " + key);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.islandium.langeditor.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Most recently loaded .lang files, most recent first, kept across restarts so the
+ * {@link WarmupService} can prepare them.
+ *
+ * Stored as one absolute path per line in {@code langeditor/recent-files.txt} under the
+ * server folder ({@code -Dlangeditor.recentFiles=<file>}).
+ */
+public final class RecentFiles {
+
+    public static final int MAX_FILES = Integer.getInteger("langeditor.warmup.recentFiles", 8);
+
+    private static final RecentFiles instance =
+            new RecentFiles(Path.of(System.getProperty("langeditor.recentFiles", "langeditor/recent-files.txt")));
+
+    private final Path store;
+    // Read from the store on first use
+    private List<Path> files;
+
+    private RecentFiles(Path store) {
+        this.store = store;
+    }
+
+    public static RecentFiles get() {
+        return instance;
+    }
+
+    /**
+     * Moves a file to the top of the list and writes the list.
+     */
+    public synchronized void touch(Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        List<Path> current = files();
+        if (!current.isEmpty() && current.get(0).equals(normalized)) {
+            return;
+        }
+        current.remove(normalized);
+        current.add(0, normalized);
+        while (current.size() > MAX_FILES) {
+            current.remove(current.size() - 1);
+        }
+        write(current);
+    }
+
+    /**
+     * Gets the files, most recent first.
+     */
+    public synchronized List<Path> list() {
+        return List.copyOf(files());
+    }
+
+    private List<Path> files() {
+        if (files == null) {
+            files = new ArrayList<>();
+            try {
+                if (Files.exists(store)) {
+                    for (String line : Files.readAllLines(store, StandardCharsets.UTF_8)) {
+                        if (!line.isBlank() && files.size() < MAX_FILES) {
+                            files.add(Path.of(line.strip()));
+                        }
+                    }
+                }
+            } catch (IOException | InvalidPathException e) {
+                // Only a hint for the warm-up, start a new list
+                files.clear();
+            }
+        }
+        return files;
+    }
+
+    private void write(List<Path> current) {
+        List<String> lines = new ArrayList<>(current.size());
+        for (Path file : current) {
+            lines.add(file.toString());
+        }
+        try {
+            Path parent = store.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = store.resolveSibling(store.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, store, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
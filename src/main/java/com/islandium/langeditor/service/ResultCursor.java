@@ -0,0 +1,65 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.query.LangQuery;
+
+import java.util.List;
+
+/**
+ * Lazy view over the results of a query in the current file.
+ *
+ * The total count is computed once and reused until the file changes, and a page only
+ * collects its own entries, so flipping pages never copies the whole result list.
+ */
+public final class ResultCursor {
+
+    private final LangFileManager manager;
+    private final LangQuery query;
+
+    private int count = -1;
+    private long countedVersion;
+
+    ResultCursor(LangFileManager manager, LangQuery query) {
+        this.manager = manager;
+        this.query = query;
+    }
+
+    public LangQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the number of results, recounted only after a change of the file.
+     */
+    public int count() {
+        synchronized (manager) {
+            long version = manager.getVersion();
+            if (count < 0 || countedVersion != version) {
+                count = manager.count(query);
+                countedVersion = version;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Gets the number of pages of the given size, at least 1.
+     */
+    public int pageCount(int pageSize) {
+        return Math.max(1, (count() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Gets the results of a page (0-based). Empty past the last page.
+     */
+    public List<LangEntry> page(int pageIndex, int pageSize) {
+        return window(pageIndex * pageSize, pageSize);
+    }
+
+    /**
+     * Gets at most {@code limit} results starting at the {@code offset}-th one.
+     */
+    public List<LangEntry> window(int offset, int limit) {
+        return manager.window(query, offset, limit);
+    }
+}
@@ -0,0 +1,354 @@
+package com.islandium.langeditor.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Save history of a .lang file, stored in a .langhist file next to it.
+ *
+ * Each save appends one record holding the delta that turns the saved lines back into the
+ * lines they replaced: a deflated list of "copy n lines of the saved version from line i"
+ * and "insert this line" operations. Unchanged runs of lines cost one copy operation, so the
+ * history grows with the size of the changes, not with the size of the file. Going back n
+ * saves applies the last n deltas to the current file, newest first.
+ *
+ * Each record keeps the hash of the lines before and after its save: a file changed outside
+ * of the editor breaks the chain, and the history cannot be applied across that point.
+ */
+public final class SaveHistory {
+
+    public static final String EXTENSION = ".langhist";
+
+    // Oldest records are dropped beyond this count
+    public static final int MAX_ENTRIES = Integer.getInteger("langeditor.history.maxEntries", 100);
+
+    private static final int MAGIC = 0x4C485354; // "LHST"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 4 + 4;
+    private static final int RECORD_HEADER_SIZE = 8 + 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+    private static final byte OP_COPY = 0;
+    private static final byte OP_INSERT = 1;
+    private static final byte OP_END = 2;
+
+    // Positions of a repeated line (blank lines, separators) tried before giving up on the closest one
+    private static final int MAX_CANDIDATE_STEPS = 32;
+
+    /**
+     * One save, most recent first.
+     *
+     * @param number    1 for the last save: rolling back {@code number} saves restores the lines before it
+     * @param timestamp time of the save, in epoch milliseconds
+     * @param added     lines written by the save that were not in the file before
+     * @param removed   lines of the file that the save replaced or deleted
+     * @param lineCount lines of the file before the save
+     * @param size      bytes taken by the record
+     */
+    public record Entry(int number, long timestamp, int added, int removed, int lineCount, int size) {}
+
+    private record Header(long offset, long timestamp, int previousLines, int currentLines,
+                          long previousHash, long currentHash, int added, int removed, int payloadLength) {
+
+        long end() {
+            return offset + RECORD_HEADER_SIZE + payloadLength;
+        }
+    }
+
+    private SaveHistory() {}
+
+    /**
+     * Returns the history path for a .lang file (server.lang -> server.langhist).
+     */
+    public static Path historyFor(Path source) {
+        String name = source.getFileName().toString();
+        if (name.endsWith(".lang")) {
+            name = name.substring(0, name.length() - ".lang".length());
+        }
+        return source.resolveSibling(name + EXTENSION);
+    }
+
+    /**
+     * Hashes lines as they are compared here, line breaks excluded.
+     */
+    public static long hash(List<String> lines) {
+        CRC32C crc = new CRC32C();
+        for (String line : lines) {
+            crc.update(line.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Records a save that replaced {@code previous} by {@code current}. Returns false if the
+     * lines are identical and nothing was recorded.
+     */
+    public static boolean record(Path source, List<String> previous, List<String> current) throws IOException {
+        long previousHash = hash(previous);
+        long currentHash = hash(current);
+        if (previousHash == currentHash && previous.equals(current)) {
+            return false;
+        }
+
+        int[] counts = new int[2];
+        byte[] payload = encode(current, previous, counts);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putLong(System.currentTimeMillis())
+                .putInt(previous.size())
+                .putInt(current.size())
+                .putLong(previousHash)
+                .putLong(currentHash)
+                .putInt(counts[0])
+                .putInt(counts[1])
+                .putInt(payload.length)
+                .put(payload)
+                .flip();
+
+        Path history = historyFor(source);
+        List<Header> headers = readHeaders(history);
+        if (headers.size() >= MAX_ENTRIES) {
+            rewrite(history, headers.subList(headers.size() - MAX_ENTRIES + 1, headers.size()), record);
+            return true;
+        }
+
+        long validEnd = headers.isEmpty() ? FILE_HEADER_SIZE : headers.get(headers.size() - 1).end();
+        try (FileChannel channel = FileChannel.open(history, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < FILE_HEADER_SIZE || headers.isEmpty() && !hasFileHeader(channel)) {
+                channel.truncate(0);
+                writeFully(channel, ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+            }
+            // Drops the tail of a record cut by a crash
+            channel.truncate(validEnd);
+            writeFully(channel, record, validEnd);
+        }
+        return true;
+    }
+
+    /**
+     * Lists the recorded saves, most recent first.
+     */
+    public static List<Entry> list(Path source) throws IOException {
+        List<Header> headers = readHeaders(historyFor(source));
+        List<Entry> entries = new ArrayList<>(headers.size());
+        for (int i = headers.size() - 1; i >= 0; i--) {
+            Header header = headers.get(i);
+            entries.add(new Entry(headers.size() - i, header.timestamp(), header.added(), header.removed(),
+                    header.previousLines(), RECORD_HEADER_SIZE + header.payloadLength()));
+        }
+        return entries;
+    }
+
+    /**
+     * Rebuilds the lines of the file as they were before its last {@code steps} saves.
+     *
+     * @param current the lines of the file now
+     */
+    public static List<String> restore(Path source, List<String> current, int steps) throws IOException {
+        Path history = historyFor(source);
+        List<Header> headers = readHeaders(history);
+        if (steps < 1 || steps > headers.size()) {
+            throw new IOException("Version inconnue: " + steps + " (" + headers.size() + " sauvegardes dans l'historique)");
+        }
+
+        List<String> lines = current;
+        try (FileChannel channel = FileChannel.open(history, StandardOpenOption.READ)) {
+            for (int i = 0; i < steps; i++) {
+                Header header = headers.get(headers.size() - 1 - i);
+                if (lines.size() != header.currentLines() || hash(lines) != header.currentHash()) {
+                    throw new IOException(i == 0
+                            ? "Le fichier a ete modifie hors de l'editeur depuis la derniere sauvegarde"
+                            : "Historique interrompu par une modification hors de l'editeur avant la sauvegarde " + (i + 1));
+                }
+                ByteBuffer payload = ByteBuffer.allocate(header.payloadLength());
+                readFully(channel, payload, header.offset() + RECORD_HEADER_SIZE);
+                lines = decode(lines, payload.array());
+                if (hash(lines) != header.previousHash()) {
+                    throw new IOException("Historique corrompu a la sauvegarde " + (i + 1));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Encodes {@code target} as copies of runs of {@code base} plus inserted lines. Lines of
+     * the target are matched in a single pass against the positions of the base lines,
+     * preferring the line right after the previous match so unchanged runs stay one copy.
+     * counts[0] receives the base lines not copied, counts[1] the inserted lines.
+     */
+    private static byte[] encode(List<String> base, List<String> target, int[] counts) throws IOException {
+        // First position of each base line, then the next position of the same line
+        Map<String, Integer> first = new HashMap<>(base.size() * 2);
+        int[] next = new int[base.size()];
+        for (int i = base.size() - 1; i >= 0; i--) {
+            Integer following = first.put(base.get(i), i);
+            next[i] = following != null ? following : -1;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            int copyStart = -1;
+            int copyLength = 0;
+            int copied = 0;
+            int inserted = 0;
+            for (String line : target) {
+                int expected = copyStart + copyLength;
+                if (copyLength > 0 && expected < base.size() && base.get(expected).equals(line)) {
+                    copyLength++;
+                    continue;
+                }
+                if (copyLength > 0) {
+                    writeCopy(out, copyStart, copyLength);
+                    copied += copyLength;
+                    copyLength = 0;
+                }
+
+                Integer position = first.get(line);
+                if (position == null) {
+                    out.writeByte(OP_INSERT);
+                    byte[] text = line.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(text.length);
+                    out.write(text);
+                    inserted++;
+                    continue;
+                }
+                // Closest occurrence after the previous match, so a repeated line keeps the run going
+                int candidate = position;
+                for (int step = 0; candidate >= 0 && candidate < expected && step < MAX_CANDIDATE_STEPS; step++) {
+                    candidate = next[candidate];
+                }
+                copyStart = candidate >= expected ? candidate : position;
+                copyLength = 1;
+            }
+            if (copyLength > 0) {
+                writeCopy(out, copyStart, copyLength);
+                copied += copyLength;
+            }
+            out.writeByte(OP_END);
+            counts[0] = Math.max(0, base.size() - copied);
+            counts[1] = inserted;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeCopy(DataOutputStream out, int start, int length) throws IOException {
+        out.writeByte(OP_COPY);
+        out.writeInt(start);
+        out.writeInt(length);
+    }
+
+    private static List<String> decode(List<String> base, byte[] payload) throws IOException {
+        List<String> lines = new ArrayList<>(base.size());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            while (true) {
+                byte op = in.readByte();
+                if (op == OP_END) {
+                    return lines;
+                }
+                if (op == OP_COPY) {
+                    int start = in.readInt();
+                    int length = in.readInt();
+                    if (start < 0 || length < 0 || start + length > base.size()) {
+                        throw new IOException("Historique corrompu: copie hors du fichier");
+                    }
+                    lines.addAll(base.subList(start, start + length));
+                } else if (op == OP_INSERT) {
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    lines.add(new String(text, StandardCharsets.UTF_8));
+                } else {
+                    throw new IOException("Historique corrompu: operation " + op);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the record headers in file order, stopping at the first incomplete record.
+     */
+    private static List<Header> readHeaders(Path history) throws IOException {
+        if (!Files.isRegularFile(history)) {
+            return new ArrayList<>();
+        }
+        List<Header> headers = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(history, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FILE_HEADER_SIZE || !hasFileHeader(channel)) {
+                return headers;
+            }
+            long offset = FILE_HEADER_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            while (offset + RECORD_HEADER_SIZE <= size) {
+                buffer.clear();
+                readFully(channel, buffer, offset);
+                buffer.flip();
+                Header header = new Header(offset, buffer.getLong(), buffer.getInt(), buffer.getInt(),
+                        buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+                if (header.payloadLength() < 0 || header.end() > size) {
+                    break;
+                }
+                headers.add(header);
+                offset = header.end();
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Rewrites the history with the given records plus a new one, through a temporary file.
+     */
+    private static void rewrite(Path history, List<Header> kept, ByteBuffer record) throws IOException {
+        Path temp = history.resolveSibling(history.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(history, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+            long position = FILE_HEADER_SIZE;
+            if (!kept.isEmpty()) {
+                long start = kept.get(0).offset();
+                long length = kept.get(kept.size() - 1).end() - start;
+                long done = 0;
+                while (done < length) {
+                    done += in.transferTo(start + done, length - done, out);
+                }
+                position += length;
+            }
+            writeFully(out, record, position);
+        }
+        try {
+            Files.move(temp, history, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, history, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean hasFileHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        if (channel.size() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        readFully(channel, header, 0);
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
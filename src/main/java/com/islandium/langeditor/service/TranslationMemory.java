@@ -0,0 +1,358 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.index.MinHashLsh;
+import com.islandium.langeditor.index.PathTrie;
+import com.islandium.langeditor.util.CpuBudget;
+import com.islandium.langeditor.util.StringPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Translation memory: every value of every .lang file of the mods, indexed by similarity
+ * ({@link MinHashLsh}), to suggest existing texts and their translations while typing.
+ *
+ * Files are expected under a locale folder ("Languages/fr-FR/server.lang"): the same file
+ * name in the sibling locale folders holds the translations of the same keys. The catalog
+ * is built in the background when the plugin starts, and the loaded file is re-read after
+ * each save, import or load, so the memory follows the disk.
+ */
+public final class TranslationMemory {
+
+    private static final TranslationMemory instance = new TranslationMemory();
+
+    // Below this similarity a value is not worth suggesting
+    private static final double MIN_SIMILARITY = 0.3;
+    // Candidates checked for their exact similarity, the ones sharing the most buckets first
+    private static final int MAX_CANDIDATES = 200;
+    // Catalog paths are completed relative to the server folder, as typed in the commands
+    private static final Path WORKING_DIRECTORY = Path.of("").toAbsolutePath().normalize();
+
+    /**
+     * Value similar to the searched text.
+     *
+     * @param value        the existing value
+     * @param similarity   Jaccard similarity of the trigrams, from 0 to 1
+     * @param key          key holding the value
+     * @param locale       locale of the file holding the value
+     * @param translations values of the same key in the other locales, by locale
+     */
+    public record Suggestion(String value, double similarity, String key, String locale, Map<String, String> translations) {}
+
+    /**
+     * Key shared by a file and its translations: the folder of the locale folders and the
+     * file name ("Languages/fr-FR/server.lang" is (Languages, server.lang)). A file outside
+     * of a locale folder is alone in its group, with an empty file name.
+     */
+    public record LocaleGroup(Path languagesDir, String fileName) {}
+
+    private static final class Doc {
+        private final Path file;
+        private final String key;
+        private String value;
+
+        private Doc(Path file, String key, String value) {
+            this.file = file;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final MinHashLsh lsh = new MinHashLsh();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<Path, Map<String, Integer>> idsByFile = new HashMap<>();
+    // Same file name in every locale folder ((Languages, server.lang) -> files)
+    private final Map<LocaleGroup, Set<Path>> localeFiles = new HashMap<>();
+
+    // Every .lang file found under the mods folder, once the first build is done
+    private Path catalogRoot;
+    private final Set<Path> catalogFiles = new TreeSet<>();
+    private final PathTrie catalogNames = new PathTrie();
+
+    private final Consumer<EntryChange> changeListener = this::onChange;
+    private ExecutorService executor;
+
+    private TranslationMemory() {}
+
+    public static TranslationMemory get() {
+        return instance;
+    }
+
+    /**
+     * Builds the catalog of a mods folder in the background, within the budget, and follows
+     * the saves of the loaded file. A build cancelled by the budget leaves the catalog unused.
+     */
+    public synchronized void start(String modsDirectory, CpuBudget budget) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LangEditor-TranslationMemory");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            List<Path> files = LangFileManager.get().findLangFiles(modsDirectory);
+            for (Path file : files) {
+                if (!budget.pace()) {
+                    EditorStats.get().increment("tm.build.cancelled");
+                    return;
+                }
+                long fileStart = System.nanoTime();
+                syncFile(file);
+                budget.charge(fileStart);
+            }
+            synchronized (this) {
+                for (Path file : files) {
+                    Path normalized = file.toAbsolutePath().normalize();
+                    catalogFiles.add(normalized);
+                    catalogNames.add(catalogName(normalized));
+                }
+                catalogRoot = Path.of(modsDirectory).toAbsolutePath().normalize();
+            }
+            EditorStats.get().record("tm.build", start);
+        });
+        LangFileManager.get().addChangeListener(changeListener);
+    }
+
+    public synchronized void shutdown() {
+        LangFileManager.get().removeChangeListener(changeListener);
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void onChange(EntryChange change) {
+        // A transaction saved with the file is a single BATCH change
+        if (!change.isFileWritten() && change.kind() != EntryChange.Kind.LOADED) {
+            return;
+        }
+        String path = LangFileManager.get().getCurrentFilePath();
+        ExecutorService current = executor;
+        if (path != null && current != null) {
+            current.execute(() -> syncFile(Path.of(path)));
+        }
+    }
+
+    /**
+     * Re-reads a file and updates its values in the memory: only the changed values are re-hashed.
+     */
+    public void syncFile(Path file) {
+        Map<String, String> values = new LinkedHashMap<>();
+        try {
+            // Files loaded lazily are too large to hold their values here as well
+            if (Files.size(file) >= LangFileManager.LAZY_LOAD_THRESHOLD) {
+                throw new IOException("Fichier trop volumineux pour la memoire de traduction");
+            }
+            StringPool pool = StringPool.get();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+                    continue;
+                }
+                int equalsIndex = line.indexOf('=');
+                if (equalsIndex > 0) {
+                    values.putIfAbsent(pool.internKey(line.substring(0, equalsIndex)), pool.internValue(line.substring(equalsIndex + 1)));
+                }
+            }
+        } catch (IOException e) {
+            values.clear();
+        }
+
+        synchronized (this) {
+            Path normalized = file.toAbsolutePath().normalize();
+            Map<String, Integer> ids = idsByFile.computeIfAbsent(normalized, f -> new HashMap<>());
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                Integer id = ids.get(entry.getKey());
+                if (id == null) {
+                    ids.put(entry.getKey(), addDoc(new Doc(normalized, entry.getKey(), entry.getValue())));
+                } else {
+                    Doc doc = docs.get(id);
+                    if (!doc.value.equals(entry.getValue())) {
+                        lsh.remove(id, doc.value);
+                        doc.value = entry.getValue();
+                        lsh.add(id, doc.value);
+                    }
+                }
+            }
+            for (Iterator<Map.Entry<String, Integer>> it = ids.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Integer> entry = it.next();
+                if (!values.containsKey(entry.getKey())) {
+                    int id = entry.getValue();
+                    lsh.remove(id, docs.get(id).value);
+                    docs.set(id, null);
+                    freeIds.push(id);
+                    it.remove();
+                }
+            }
+
+            if (ids.isEmpty()) {
+                idsByFile.remove(normalized);
+                Set<Path> group = localeFiles.get(localeGroupOf(normalized));
+                if (group != null) {
+                    group.remove(normalized);
+                }
+            } else {
+                localeFiles.computeIfAbsent(localeGroupOf(normalized), g -> new HashSet<>()).add(normalized);
+            }
+            if (catalogRoot != null && normalized.startsWith(catalogRoot)) {
+                if (Files.isRegularFile(normalized)) {
+                    if (catalogFiles.add(normalized)) {
+                        catalogNames.add(catalogName(normalized));
+                    }
+                } else if (catalogFiles.remove(normalized)) {
+                    catalogNames.remove(catalogName(normalized));
+                }
+            }
+        }
+    }
+
+    private int addDoc(Doc doc) {
+        Integer free = freeIds.poll();
+        int id;
+        if (free != null) {
+            id = free;
+            docs.set(id, doc);
+        } else {
+            id = docs.size();
+            docs.add(doc);
+        }
+        lsh.add(id, doc.value);
+        return id;
+    }
+
+    /**
+     * Suggests the existing values most similar to a text, best first, one per distinct value.
+     * The entry being edited ({@code file}/{@code key}, both may be null) is left out.
+     */
+    public synchronized List<Suggestion> suggest(String text, String file, String key, int limit) {
+        long start = System.nanoTime();
+        try {
+            int[] query = MinHashLsh.shingles(text);
+            if (query.length == 0) {
+                return List.of();
+            }
+            Path excludedFile = file != null ? Path.of(file).toAbsolutePath().normalize() : null;
+
+            record Scored(Doc doc, double similarity) {}
+            List<Scored> scored = new ArrayList<>();
+            int[] candidates = lsh.candidates(text);
+            for (int i = 0; i < candidates.length && i < MAX_CANDIDATES; i++) {
+                Doc doc = docs.get(candidates[i]);
+                if (doc == null || (doc.key.equals(key) && doc.file.equals(excludedFile))) {
+                    continue;
+                }
+                double similarity = MinHashLsh.jaccard(query, MinHashLsh.shingles(doc.value));
+                if (similarity >= MIN_SIMILARITY) {
+                    scored.add(new Scored(doc, similarity));
+                }
+            }
+            scored.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+
+            List<Suggestion> suggestions = new ArrayList<>(limit);
+            Set<String> seen = new HashSet<>();
+            for (Scored s : scored) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                if (seen.add(s.doc().value)) {
+                    suggestions.add(new Suggestion(s.doc().value, s.similarity(), s.doc().key,
+                            localeOf(s.doc().file), translations(s.doc())));
+                }
+            }
+            return suggestions;
+        } finally {
+            EditorStats.get().record("tm.suggest", start);
+        }
+    }
+
+    /**
+     * Lists the .lang files of the catalog under a directory, sorted, without walking the
+     * disk. Returns null if the catalog is not built yet or does not cover the directory.
+     */
+    public List<Path> listFiles(Path directory) {
+        Path normalized = directory.toAbsolutePath().normalize();
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            if (catalogRoot == null || !normalized.startsWith(catalogRoot)) {
+                return null;
+            }
+            for (Path file : catalogFiles) {
+                if (file.startsWith(normalized)) {
+                    files.add(file);
+                }
+            }
+        }
+        // Files deleted since the build, checked outside of the lock of the suggestions
+        files.removeIf(file -> !Files.isRegularFile(file));
+        return files;
+    }
+
+    /**
+     * Completes a .lang file path of the catalog, relative to the server folder ("./mods/Ex"
+     * gives "./mods/Example/"). Empty until the catalog is built.
+     */
+    public List<String> completeFiles(String prefix, int limit) {
+        long start = System.nanoTime();
+        String dotSlash = prefix.startsWith("./") ? "./" : "";
+        List<String> completions;
+        synchronized (this) {
+            completions = catalogNames.complete(prefix.substring(dotSlash.length()), limit);
+        }
+        if (!dotSlash.isEmpty()) {
+            completions.replaceAll(completion -> dotSlash + completion);
+        }
+        EditorStats.get().record("tm.complete", start);
+        return completions;
+    }
+
+    public synchronized int size() {
+        return docs.size() - freeIds.size();
+    }
+
+    private Map<String, String> translations(Doc doc) {
+        Map<String, String> translations = new TreeMap<>();
+        for (Path other : localeFiles.getOrDefault(localeGroupOf(doc.file), Set.of())) {
+            if (other.equals(doc.file)) {
+                continue;
+            }
+            Integer id = idsByFile.getOrDefault(other, Map.of()).get(doc.key);
+            if (id != null) {
+                translations.put(localeOf(other), docs.get(id).value);
+            }
+        }
+        return translations;
+    }
+
+    private static String catalogName(Path normalized) {
+        Path name = normalized.startsWith(WORKING_DIRECTORY) ? WORKING_DIRECTORY.relativize(normalized) : normalized;
+        return name.toString().replace(File.separatorChar, PathTrie.SEPARATOR);
+    }
+
+    /**
+     * Gets the locale of a file from its folder ("Languages/fr-FR/server.lang" is fr-FR).
+     */
+    public static String localeOf(Path file) {
+        Path parent = file.getParent();
+        return parent != null && parent.getFileName() != null ? parent.getFileName().toString() : "";
+    }
+
+    /**
+     * Gets the group of a file and its translations. Unlike a path with a wildcard, the key
+     * is valid on every file system ("*" is not allowed in a Windows path).
+     */
+    public static LocaleGroup localeGroupOf(Path file) {
+        Path parent = file.getParent();
+        Path languages = parent != null ? parent.getParent() : null;
+        return languages != null ? new LocaleGroup(languages, file.getFileName().toString()) : new LocaleGroup(file, "");
+    }
+}
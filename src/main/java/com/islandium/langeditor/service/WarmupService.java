@@ -0,0 +1,102 @@
+package com.islandium.langeditor.service;
+
+import com.islandium.langeditor.util.CpuBudget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Prepares the editor in the background after a restart, so the first /langedit does not
+ * pay for it: reads and indexes the {@link RecentFiles} into the {@link DocumentCache} while
+ * they fit in its budget (their index sidecar is written if missing or stale either way),
+ * then builds the file catalog of the {@link TranslationMemory}.
+ *
+ * Runs on virtual threads within a {@link CpuBudget} shared with the catalog build, and
+ * stops at the next file once cancelled.
+ */
+public final class WarmupService {
+
+    // Recent files prepared at the same time
+    private static final int PARALLELISM = 2;
+
+    private final String modsDirectory;
+    private final CpuBudget budget;
+    private volatile Thread thread;
+
+    /**
+     * @param cpuShare part of one core the warm-up may use
+     */
+    public WarmupService(String modsDirectory, double cpuShare) {
+        this.modsDirectory = modsDirectory;
+        this.budget = new CpuBudget(cpuShare);
+    }
+
+    public synchronized void start() {
+        if (thread == null) {
+            thread = Thread.ofVirtual().name("LangEditor-Warmup").start(this::run);
+        }
+    }
+
+    /**
+     * Stops the warm-up. The files already prepared stay prepared, a catalog left incomplete
+     * is not used (the commands walk the disk instead).
+     */
+    public void cancel() {
+        budget.cancel();
+        Thread current = thread;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    public CpuBudget getBudget() {
+        return budget;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        Semaphore slots = new Semaphore(PARALLELISM);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : RecentFiles.get().list()) {
+                if (budget.isCancelled()) {
+                    break;
+                }
+                slots.acquire();
+                executor.execute(() -> {
+                    try {
+                        prepare(file);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        EditorStats.get().record("warmup.recent", start);
+
+        // The recent files first: they are the likely first /langedit
+        if (!budget.isCancelled()) {
+            TranslationMemory.get().start(modsDirectory, budget);
+        }
+    }
+
+    private void prepare(Path file) {
+        if (!budget.pace() || !Files.isRegularFile(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            boolean cached = LangFileManager.get().preload(file);
+            EditorStats.get().increment(cached ? "warmup.preloaded" : "warmup.skipped");
+        } catch (IOException e) {
+            EditorStats.get().increment("warmup.failed");
+        } finally {
+            budget.charge(start);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.islandium.langeditor.ui;
+
+import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+import com.hypixel.hytale.server.core.ui.builder.EventData;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+
+/**
+ * {@link UiOutput} writing to the Hytale UI builders of a page update.
+ */
+public class HytaleUiOutput implements UiOutput {
+
+    private final UICommandBuilder cmd;
+    private final UIEventBuilder event;
+
+    public HytaleUiOutput(UICommandBuilder cmd, UIEventBuilder event) {
+        this.cmd = cmd;
+        this.event = event;
+    }
+
+    @Override
+    public void set(String selector, String value) {
+        cmd.set(selector, value);
+    }
+
+    @Override
+    public void set(String selector, boolean value) {
+        cmd.set(selector, value);
+    }
+
+    @Override
+    public void clear(String selector) {
+        cmd.clear(selector);
+    }
+
+    @Override
+    public void appendInline(String selector, String ui) {
+        cmd.appendInline(selector, ui);
+    }
+
+    @Override
+    public void bindActivating(String selector, String key, String value) {
+        event.addEventBinding(CustomUIEventBindingType.Activating, selector, EventData.of(key, value), false);
+    }
+}
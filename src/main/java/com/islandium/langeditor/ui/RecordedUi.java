@@ -0,0 +1,67 @@
+package com.islandium.langeditor.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link UiOutput} keeping the commands it receives, to send them again to other outputs.
+ * Lets a rendered fragment be cached and shown to several pages without rendering it again.
+ */
+public final class RecordedUi implements UiOutput {
+
+    private enum Op {
+        SET_TEXT,
+        SET_FLAG,
+        CLEAR,
+        APPEND_INLINE,
+        BIND_ACTIVATING
+    }
+
+    private record Command(Op op, String selector, String value, String extra) {}
+
+    private final List<Command> commands = new ArrayList<>();
+
+    @Override
+    public void set(String selector, String value) {
+        commands.add(new Command(Op.SET_TEXT, selector, value, null));
+    }
+
+    @Override
+    public void set(String selector, boolean value) {
+        commands.add(new Command(Op.SET_FLAG, selector, String.valueOf(value), null));
+    }
+
+    @Override
+    public void clear(String selector) {
+        commands.add(new Command(Op.CLEAR, selector, null, null));
+    }
+
+    @Override
+    public void appendInline(String selector, String ui) {
+        commands.add(new Command(Op.APPEND_INLINE, selector, ui, null));
+    }
+
+    @Override
+    public void bindActivating(String selector, String key, String value) {
+        commands.add(new Command(Op.BIND_ACTIVATING, selector, key, value));
+    }
+
+    /**
+     * Sends the recorded commands, in order, to an output.
+     */
+    public void replay(UiOutput ui) {
+        for (Command command : commands) {
+            switch (command.op()) {
+                case SET_TEXT -> ui.set(command.selector(), command.value());
+                case SET_FLAG -> ui.set(command.selector(), Boolean.parseBoolean(command.value()));
+                case CLEAR -> ui.clear(command.selector());
+                case APPEND_INLINE -> ui.appendInline(command.selector(), command.value());
+                case BIND_ACTIVATING -> ui.bindActivating(command.selector(), command.value(), command.extra());
+            }
+        }
+    }
+
+    public int size() {
+        return commands.size();
+    }
+}
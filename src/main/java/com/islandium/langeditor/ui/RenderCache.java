@@ -0,0 +1,81 @@
+package com.islandium.langeditor.ui;
+
+import com.islandium.langeditor.service.EditorStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rendered fragments shared by every page showing the loaded file, least recently used
+ * first out.
+ *
+ * Fragments are keyed by the version of the file they were rendered from
+ * ({@link com.islandium.langeditor.service.LangFileManager#getVersion()}): the first lookup
+ * or store of a newer version drops everything, and a fragment of an older version is not
+ * stored. Two players on the same query and page of an unchanged file therefore share one
+ * search and one rendering.
+ *
+ * @param <V> the fragment, with whatever the page needs besides its UI commands
+ */
+public final class RenderCache<V> {
+
+    /**
+     * @param view  what is rendered ("search", "fuzzy", "tree:&lt;namespace&gt;", ...)
+     * @param query the search text
+     * @param page  the requested page
+     */
+    public record Key(long version, String view, String query, int page) {}
+
+    private final String name;
+    private final Map<Key, V> fragments;
+    private long version = Long.MIN_VALUE;
+
+    /**
+     * @param name     prefix of the hit and miss counters in {@link EditorStats}
+     * @param capacity fragments kept at most
+     */
+    public RenderCache(String name, int capacity) {
+        this.name = name;
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets a fragment rendered from this version of the file, or null.
+     */
+    public synchronized V lookup(Key key) {
+        advance(key.version());
+        V fragment = fragments.get(key);
+        EditorStats.get().increment(name + (fragment != null ? ".cache_hit" : ".cache_miss"));
+        return fragment;
+    }
+
+    /**
+     * Keeps a fragment, unless the file changed since the version it was rendered from.
+     */
+    public synchronized void store(Key key, V fragment) {
+        advance(key.version());
+        if (key.version() == version) {
+            fragments.put(key, fragment);
+        }
+    }
+
+    public synchronized void clear() {
+        fragments.clear();
+    }
+
+    public synchronized int size() {
+        return fragments.size();
+    }
+
+    private void advance(long keyVersion) {
+        if (keyVersion > version) {
+            fragments.clear();
+            version = keyVersion;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.islandium.langeditor.ui;
+
+/**
+ * Destination of the UI commands and event bindings produced by the page logic.
+ *
+ * Pages write to a {@link HytaleUiOutput}. Keeping the rendering code behind this
+ * interface lets it run headless, e.g. in the load-test harness.
+ */
+public interface UiOutput {
+
+    void set(String selector, String value);
+
+    void set(String selector, boolean value);
+
+    void clear(String selector);
+
+    void appendInline(String selector, String ui);
+
+    /**
+     * Binds an Activating event on the element sending {@code key=value} to the page.
+     */
+    void bindActivating(String selector, String key, String value);
+}
@@ -1,6 +1,7 @@
 package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
+import com.islandium.langeditor.service.EditorStats;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -38,6 +39,15 @@ public class ColorPickerPage extends InteractiveCustomUIPage<ColorPickerPage.Pag
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+        } finally {
+            EditorStats.get().record("page.color_picker.build", start);
+        }
+    }
+
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
         cmd.append("Pages/LangEditor/ColorPickerPopup.ui");
 
         // Close/Cancel buttons
@@ -86,6 +96,15 @@ public class ColorPickerPage extends InteractiveCustomUIPage<ColorPickerPage.Pag
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.color_picker.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
@@ -2,6 +2,7 @@ package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
 import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.EditorStats;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -40,6 +41,15 @@ public class DeleteConfirmPage extends InteractiveCustomUIPage<DeleteConfirmPage
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+        } finally {
+            EditorStats.get().record("page.delete_confirm.build", start);
+        }
+    }
+
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
         cmd.append("Pages/LangEditor/DeleteConfirmPopup.ui");
 
         // Event bindings
@@ -67,6 +77,15 @@ public class DeleteConfirmPage extends InteractiveCustomUIPage<DeleteConfirmPage
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.delete_confirm.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
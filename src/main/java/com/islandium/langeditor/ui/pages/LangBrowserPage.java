@@ -1,6 +1,7 @@
 package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
+import com.islandium.langeditor.service.EditorStats;
 import com.islandium.langeditor.service.LangFileManager;
 import com.islandium.langeditor.util.ColorUtil;
 import com.hypixel.hytale.codec.Codec;
@@ -74,6 +75,15 @@ public class LangBrowserPage extends InteractiveCustomUIPage<LangBrowserPage.Pag
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+        } finally {
+            EditorStats.get().record("page.browser.build", start);
+        }
+    }
+
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
         cmd.append("Pages/LangEditor/LangBrowserPage.ui");
 
         // Setup events
@@ -140,6 +150,15 @@ public class LangBrowserPage extends InteractiveCustomUIPage<LangBrowserPage.Pag
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.browser.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
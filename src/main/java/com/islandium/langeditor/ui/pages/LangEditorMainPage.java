@@ -2,7 +2,11 @@ package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
 import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.EditorStats;
+import com.islandium.langeditor.service.EntryChange;
 import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.ui.HytaleUiOutput;
+import com.islandium.langeditor.ui.UiOutput;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -17,20 +21,34 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Main page for the language file editor with search functionality.
+ *
+ * While open, the page follows the changes made by the other editors: a value change
+ * refreshes its row only, other changes rebuild the list. Changes are handed over to the
+ * world of the player and coalesced, so a burst (patch, import) sends a single update.
  */
 public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPage.PageData> {
 
     private final LangEditorPlugin plugin;
-    private String searchQuery = "";
-    private int currentPage = 0;
-    private static final int ENTRIES_PER_PAGE = 30; // 15 par colonne x 2 colonnes
+    private final LangEditorMainView view = new LangEditorMainView();
+
+    // Changes received from the manager, applied on the world thread
+    private final Consumer<EntryChange> changeListener = this::onChange;
+    private final Set<LangEntry> pendingRows = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingRebuild = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile World world;
+    private volatile boolean closed;
 
     public LangEditorMainPage(@Nonnull PlayerRef playerRef, LangEditorPlugin plugin) {
         super(playerRef, CustomPageLifetime.CanDismiss, PageData.CODEC);
@@ -39,117 +57,111 @@ public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPa
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
-        cmd.append("Pages/LangEditor/LangEditorMainPage.ui");
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+            if (world == null) {
+                world = ((EntityStore) store.getExternalData()).getWorld();
+                LangFileManager.get().addChangeListener(changeListener);
+            }
+        } finally {
+            EditorStats.get().record("page.main.build", start);
+        }
+    }
 
-        // Setup events
-        event.addEventBinding(CustomUIEventBindingType.ValueChanged, "#SearchField", EventData.of("@Search", "#SearchField.Value"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#BackBtn", EventData.of("Action", "back"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#AddEntryBtn", EventData.of("Action", "add_entry"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#SaveBtn", EventData.of("Action", "save"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#ReloadBtn", EventData.of("Action", "reload"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#PrevPageBtn", EventData.of("Action", "prev_page"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#NextPageBtn", EventData.of("Action", "next_page"), false);
-        event.addEventBinding(CustomUIEventBindingType.Activating, "#CloseButton", EventData.of("Action", "close"), false);
+    @Override
+    public void onDismiss(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        unsubscribe();
+        super.onDismiss(ref, store);
+    }
 
-        // Build initial content
-        buildHeader(cmd);
-        buildResultsList(cmd, event);
+    private void unsubscribe() {
+        closed = true;
+        LangFileManager.get().removeChangeListener(changeListener);
     }
 
-    private void buildHeader(UICommandBuilder cmd) {
-        LangFileManager manager = LangFileManager.get();
-        String fileName = manager.getCurrentFileName();
-        if (fileName != null) {
-            cmd.set("#FileNameLabel.Text", fileName);
+    /**
+     * Called under the manager lock by the thread that made the change: only records it
+     * and schedules one flush on the world thread.
+     */
+    private void onChange(EntryChange change) {
+        if (closed) {
+            return;
         }
-
-        cmd.set("#EntryCountLabel.Text", manager.getEntryCount() + " entrees");
-
-        // Show unsaved indicator
-        if (manager.hasUnsavedChanges()) {
-            cmd.set("#UnsavedIndicator.Visible", true);
+        if (change.isValueOnly()) {
+            pendingRows.add(change.entry());
         } else {
-            cmd.set("#UnsavedIndicator.Visible", false);
+            pendingRebuild.set(true);
         }
-    }
-
-    private void buildResultsList(UICommandBuilder cmd, UIEventBuilder event) {
-        cmd.clear("#LeftColumn");
-        cmd.clear("#RightColumn");
-
-        List<LangEntry> results = LangFileManager.get().search(searchQuery);
-        int totalPages = (int) Math.ceil((double) results.size() / ENTRIES_PER_PAGE);
-
-        if (currentPage >= totalPages && totalPages > 0) {
-            currentPage = totalPages - 1;
+        if (flushScheduled.compareAndSet(false, true)) {
+            world.execute(this::flushChanges);
         }
+    }
 
-        int startIndex = currentPage * ENTRIES_PER_PAGE;
-        int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, results.size());
-
-        // Update pagination info
-        cmd.set("#PageInfo.Text", "Page " + (currentPage + 1) + "/" + Math.max(1, totalPages));
-        cmd.set("#ResultCount.Text", results.size() + " resultat" + (results.size() > 1 ? "s" : ""));
-
-        // Update pagination buttons
-        cmd.set("#PrevPageBtn.Disabled", currentPage == 0);
-        cmd.set("#NextPageBtn.Disabled", currentPage >= totalPages - 1);
-
-        if (results.isEmpty()) {
-            cmd.set("#EntriesContainer.Visible", false);
-            cmd.set("#NoResultsMessage.Visible", true);
+    private void flushChanges() {
+        flushScheduled.set(false);
+        if (closed) {
             return;
         }
 
-        cmd.set("#EntriesContainer.Visible", true);
-        cmd.set("#NoResultsMessage.Visible", false);
-
-        int itemsOnPage = endIndex - startIndex;
-        int halfPoint = (itemsOnPage + 1) / 2; // Premiere colonne peut avoir 1 de plus
-
-        for (int i = startIndex; i < endIndex; i++) {
-            LangEntry entry = results.get(i);
-            int localIndex = i - startIndex;
-            String rowId = "EntryRow" + i;
-            String bgColor = localIndex % 2 == 0 ? "#121a26" : "#151d28";
-
-            // Determiner la colonne
-            String columnId = localIndex < halfPoint ? "#LeftColumn" : "#RightColumn";
-
-            // Modified indicator
-            String modifiedIndicator = entry.isModified() ? "*" : "";
-            String modifiedColor = entry.isModified() ? "#ffd700" : "#4ade80";
-
-            // Truncate key if too long
-            String keyDisplay = entry.getKey();
-            if (keyDisplay.length() > 35) {
-                keyDisplay = keyDisplay.substring(0, 32) + "...";
+        long start = System.nanoTime();
+        try {
+            UICommandBuilder cmd = new UICommandBuilder();
+            UIEventBuilder event = new UIEventBuilder();
+            UiOutput ui = new HytaleUiOutput(cmd, event);
+
+            boolean rebuild = pendingRebuild.getAndSet(false);
+            for (LangEntry entry : pendingRows) {
+                pendingRows.remove(entry);
+                if (!rebuild && !view.updateRow(ui, entry)) {
+                    rebuild = true;
+                }
             }
 
-            String rowUi = String.format(
-                    "Button #%s { Anchor: (Height: 32, Bottom: 2); Background: (Color: %s); Padding: (Horizontal: 8, Vertical: 4); " +
-                    "Label { Text: \"%s%s\"; Style: (FontSize: 12, TextColor: %s, HorizontalAlignment: Center, VerticalAlignment: Center); } }",
-                    rowId, bgColor, modifiedIndicator, escapeForUi(keyDisplay), modifiedColor
-            );
-
-            cmd.appendInline(columnId, rowUi);
-
-            // Bind click event to edit
-            event.addEventBinding(CustomUIEventBindingType.Activating, "#" + rowId,
-                    EventData.of("EditEntry", entry.getKey()), false);
+            view.buildHeader(ui);
+            if (rebuild) {
+                view.buildResultsList(ui);
+            }
+            sendUpdate(cmd, event, false);
+            EditorStats.get().increment(rebuild ? "page.main.live_rebuild" : "page.main.live_row");
+        } finally {
+            EditorStats.get().record("page.main.live_update", start);
         }
     }
 
-    private String escapeForUi(String text) {
-        return text
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", " ")
-                .replace("\r", "");
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
+        cmd.append("Pages/LangEditor/LangEditorMainPage.ui");
+
+        // Setup events
+        event.addEventBinding(CustomUIEventBindingType.ValueChanged, "#SearchField", EventData.of("@Search", "#SearchField.Value"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#BackBtn", EventData.of("Action", "back"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#AddEntryBtn", EventData.of("Action", "add_entry"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#FuzzyToggleBtn", EventData.of("Action", "toggle_fuzzy"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#BrowseToggleBtn", EventData.of("Action", "toggle_browse"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#SaveBtn", EventData.of("Action", "save"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#ReloadBtn", EventData.of("Action", "reload"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#PrevPageBtn", EventData.of("Action", "prev_page"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#NextPageBtn", EventData.of("Action", "next_page"), false);
+        event.addEventBinding(CustomUIEventBindingType.Activating, "#CloseButton", EventData.of("Action", "close"), false);
+
+        // Build initial content
+        UiOutput ui = new HytaleUiOutput(cmd, event);
+        view.buildHeader(ui);
+        view.buildSearchMode(ui);
+        view.buildResultsList(ui);
     }
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.main.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
@@ -157,18 +169,19 @@ public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPa
 
         UICommandBuilder cmd = new UICommandBuilder();
         UIEventBuilder event = new UIEventBuilder();
+        UiOutput ui = new HytaleUiOutput(cmd, event);
 
         // Handle close
         if ("close".equals(data.action)) {
+            unsubscribe();
             close();
             return;
         }
 
         // Handle search input
         if (data.search != null) {
-            searchQuery = data.search;
-            currentPage = 0;
-            buildResultsList(cmd, event);
+            view.setSearchQuery(data.search);
+            view.buildResultsList(ui);
             sendUpdate(cmd, event, false);
             return;
         }
@@ -178,12 +191,14 @@ public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPa
             switch (data.action) {
                 case "back" -> {
                     // Go back to mod selection
+                    unsubscribe();
                     player.getPageManager().openCustomPage(ref, store,
                             new LangFileSelectPage(playerRef, plugin, "./mods")
                     );
                     return;
                 }
                 case "add_entry" -> {
+                    unsubscribe();
                     player.getPageManager().openCustomPage(ref, store,
                             new LangEntryEditorPage(playerRef, plugin, null)
                     );
@@ -195,35 +210,53 @@ public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPa
                     } else {
                         player.sendMessage(ColorUtil.parse("&cErreur lors de la sauvegarde!"));
                     }
-                    buildHeader(cmd);
-                    buildResultsList(cmd, event);
+                    view.buildHeader(ui);
+                    view.buildResultsList(ui);
                 }
                 case "reload" -> {
                     String path = LangFileManager.get().getCurrentFilePath();
                     if (path != null && LangFileManager.get().loadFile(path)) {
                         player.sendMessage(ColorUtil.parse("&aFichier recharge!"));
                     }
-                    buildHeader(cmd);
-                    buildResultsList(cmd, event);
+                    view.buildHeader(ui);
+                    view.buildResultsList(ui);
+                }
+                case "toggle_fuzzy" -> {
+                    view.toggleFuzzy();
+                    view.buildSearchMode(ui);
+                    view.buildResultsList(ui);
+                }
+                case "toggle_browse" -> {
+                    view.toggleBrowsing();
+                    view.buildSearchMode(ui);
+                    view.buildResultsList(ui);
                 }
                 case "prev_page" -> {
-                    if (currentPage > 0) {
-                        currentPage--;
-                        buildResultsList(cmd, event);
+                    if (view.previousPage()) {
+                        view.buildResultsList(ui);
                     }
                 }
                 case "next_page" -> {
-                    currentPage++;
-                    buildResultsList(cmd, event);
+                    view.nextPage();
+                    view.buildResultsList(ui);
                 }
             }
             sendUpdate(cmd, event, false);
             return;
         }
 
+        // Handle namespace drill-down
+        if (data.openNamespace != null) {
+            view.openNamespace(data.openNamespace);
+            view.buildResultsList(ui);
+            sendUpdate(cmd, event, false);
+            return;
+        }
+
         // Handle entry selection for editing
         if (data.editEntry != null) {
             LangFileManager.get().getEntry(data.editEntry).ifPresent(entry -> {
+                unsubscribe();
                 player.getPageManager().openCustomPage(ref, store,
                         new LangEntryEditorPage(playerRef, plugin, entry)
                 );
@@ -239,10 +272,12 @@ public class LangEditorMainPage extends InteractiveCustomUIPage<LangEditorMainPa
                 .addField(new KeyedCodec<>("Action", Codec.STRING), (d, v) -> d.action = v, d -> d.action)
                 .addField(new KeyedCodec<>("@Search", Codec.STRING), (d, v) -> d.search = v, d -> d.search)
                 .addField(new KeyedCodec<>("EditEntry", Codec.STRING), (d, v) -> d.editEntry = v, d -> d.editEntry)
+                .addField(new KeyedCodec<>("OpenNamespace", Codec.STRING), (d, v) -> d.openNamespace = v, d -> d.openNamespace)
                 .build();
 
         public String action;
         public String search;
         public String editEntry;
+        public String openNamespace;
     }
 }
@@ -0,0 +1,371 @@
+package com.islandium.langeditor.ui.pages;
+
+import com.islandium.langeditor.index.NamespaceTrie;
+import com.islandium.langeditor.lint.LintEngine;
+import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.query.LangQuery;
+import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.service.ResultCursor;
+import com.islandium.langeditor.ui.RecordedUi;
+import com.islandium.langeditor.ui.RenderCache;
+import com.islandium.langeditor.ui.UiOutput;
+import com.islandium.langeditor.util.LangMarkup;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search and paging state of {@link LangEditorMainPage} and the rendering of its
+ * header and result list. Independent of the Hytale page classes so it can run headless.
+ */
+public class LangEditorMainView {
+
+    public static final int ENTRIES_PER_PAGE = 30; // 15 par colonne x 2 colonnes
+    public static final int FUZZY_RESULT_LIMIT = 300; // 10 pages des meilleurs resultats
+
+    // Result pages rendered by any view, reused while the file is unchanged
+    private static final RenderCache<RenderedPage> PAGE_CACHE =
+            new RenderCache<>("render", Integer.getInteger("langeditor.renderCache.size", 256));
+
+    private String searchQuery = "";
+    private LangQuery compiledQuery = LangQuery.parse("");
+    private ResultCursor cursor;
+    private int currentPage = 0;
+    private boolean fuzzy = false;
+    private boolean browsing = false;
+    private String namespace = "";
+
+    // Entries shown by the last rebuild of the list, to refresh a single row
+    private final Map<LangEntry, VisibleRow> visibleRows = new IdentityHashMap<>();
+
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    /**
+     * Sets the search query and goes back to the first page.
+     * The query is compiled once here, not on every rebuild of the list.
+     */
+    public void setSearchQuery(String searchQuery) {
+        this.searchQuery = searchQuery;
+        this.compiledQuery = LangQuery.parse(searchQuery);
+        this.cursor = null;
+        this.currentPage = 0;
+    }
+
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    /**
+     * Switches between exact search and typo-tolerant key search, back to the first page.
+     */
+    public void toggleFuzzy() {
+        fuzzy = !fuzzy;
+        currentPage = 0;
+    }
+
+    public boolean isBrowsing() {
+        return browsing;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Switches between the flat list and the namespace tree, back to the first page.
+     */
+    public void toggleBrowsing() {
+        browsing = !browsing;
+        currentPage = 0;
+    }
+
+    /**
+     * Opens a namespace of the tree ("" for the top level), back to the first page.
+     */
+    public void openNamespace(String namespace) {
+        this.namespace = namespace;
+        this.currentPage = 0;
+    }
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    /**
+     * Goes to the previous page. Returns false if already on the first page.
+     */
+    public boolean previousPage() {
+        if (currentPage > 0) {
+            currentPage--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Goes to the next page. Clamped to the last page when the results are rebuilt.
+     */
+    public void nextPage() {
+        currentPage++;
+    }
+
+    public void buildHeader(UiOutput ui) {
+        LangFileManager manager = LangFileManager.get();
+        String fileName = manager.getCurrentFileName();
+        if (fileName != null) {
+            ui.set("#FileNameLabel.Text", fileName);
+        }
+
+        int errors = LintEngine.get().getErrorCount();
+        ui.set("#EntryCountLabel.Text", manager.getEntryCount() + " entrees" + (errors > 0 ? " - " + errors + " erreur" + (errors > 1 ? "s" : "") : ""));
+
+        // Show unsaved indicator
+        if (manager.hasUnsavedChanges()) {
+            ui.set("#UnsavedIndicator.Visible", true);
+        } else {
+            ui.set("#UnsavedIndicator.Visible", false);
+        }
+    }
+
+    public void buildSearchMode(UiOutput ui) {
+        ui.set("#FuzzyToggleBtn.Text", fuzzy ? "Approx: ON" : "Approx: OFF");
+        ui.set("#BrowseToggleBtn.Text", browsing ? "Arbre: ON" : "Arbre: OFF");
+    }
+
+    public void buildResultsList(UiOutput ui) {
+        ui.clear("#LeftColumn");
+        ui.clear("#RightColumn");
+        visibleRows.clear();
+
+        // The tree is shown until a search is typed
+        boolean tree = browsing && searchQuery.isEmpty();
+        LangFileManager manager = LangFileManager.get();
+        long version = manager.getVersion();
+        // Les marques d'erreur changent aussi quand le lint du fichier entier se termine
+        long lintRevision = LintEngine.get().getRevision();
+        RenderCache.Key key = new RenderCache.Key(version, tree ? "tree:" + namespace : fuzzy ? "fuzzy" : "search", searchQuery, currentPage);
+
+        // Another view may have rendered this page of this version already: no search, no formatting
+        RenderedPage rendered = PAGE_CACHE.lookup(key);
+        if (rendered != null && rendered.lintRevision() != lintRevision) {
+            rendered = null;
+        }
+        if (rendered == null) {
+            RecordedUi recorded = new RecordedUi();
+            if (tree) {
+                buildNamespaceList(recorded);
+            } else {
+                buildSearchResults(recorded);
+            }
+            rendered = new RenderedPage(recorded, currentPage, new IdentityHashMap<>(visibleRows), lintRevision);
+            // Rendered while the file changed: the result may mix both versions
+            if (manager.getVersion() == version && LintEngine.get().getRevision() == lintRevision) {
+                PAGE_CACHE.store(key, rendered);
+            }
+        } else {
+            currentPage = rendered.page();
+            visibleRows.putAll(rendered.rows());
+        }
+        rendered.ui().replay(ui);
+    }
+
+    private void buildSearchResults(UiOutput ui) {
+        // Fuzzy results are sorted by relevance (bounded list), exact results keep the file
+        // order and only the shown page is collected
+        int total;
+        List<LangEntry> fuzzyResults = null;
+        if (fuzzy) {
+            fuzzyResults = LangFileManager.get().fuzzySearch(searchQuery, FUZZY_RESULT_LIMIT);
+            total = fuzzyResults.size();
+        } else {
+            total = cursor().count();
+        }
+        int totalPages = (int) Math.ceil((double) total / ENTRIES_PER_PAGE);
+
+        if (currentPage >= totalPages) {
+            currentPage = Math.max(0, totalPages - 1);
+        }
+
+        int startIndex = currentPage * ENTRIES_PER_PAGE;
+        int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, total);
+        List<LangEntry> pageEntries = fuzzyResults != null
+                ? fuzzyResults.subList(startIndex, endIndex)
+                : cursor().page(currentPage, ENTRIES_PER_PAGE);
+
+        // Update pagination info
+        ui.set("#PageInfo.Text", "Page " + (currentPage + 1) + "/" + Math.max(1, totalPages));
+        ui.set("#ResultCount.Text", total + " resultat" + (total > 1 ? "s" : ""));
+
+        // Update pagination buttons
+        ui.set("#PrevPageBtn.Disabled", currentPage == 0);
+        ui.set("#NextPageBtn.Disabled", currentPage >= totalPages - 1);
+
+        if (pageEntries.isEmpty()) {
+            ui.set("#EntriesContainer.Visible", false);
+            ui.set("#NoResultsMessage.Visible", true);
+            return;
+        }
+
+        ui.set("#EntriesContainer.Visible", true);
+        ui.set("#NoResultsMessage.Visible", false);
+
+        int itemsOnPage = pageEntries.size();
+        int halfPoint = (itemsOnPage + 1) / 2; // Premiere colonne peut avoir 1 de plus
+
+        for (int localIndex = 0; localIndex < itemsOnPage; localIndex++) {
+            LangEntry entry = pageEntries.get(localIndex);
+            String rowId = "EntryRow" + (startIndex + localIndex);
+            String bgColor = localIndex % 2 == 0 ? "#121a26" : "#151d28";
+
+            // Determiner la colonne
+            String columnId = localIndex < halfPoint ? "#LeftColumn" : "#RightColumn";
+
+            // Truncate key if too long
+            String keyDisplay = entry.getKey();
+            if (keyDisplay.length() > 35) {
+                keyDisplay = keyDisplay.substring(0, 32) + "...";
+            }
+
+            String name = LangMarkup.escapeForUi(keyDisplay);
+            appendRow(ui, columnId, rowId, bgColor, rowLabel(entry, name), rowColor(entry));
+            visibleRows.put(entry, new VisibleRow(rowId, name, LintEngine.get().hasErrors(entry)));
+
+            // Bind click event to edit
+            ui.bindActivating("#" + rowId, "EditEntry", entry.getKey());
+        }
+    }
+
+    /**
+     * Shows a change of the value of one entry by updating its row only. Returns false if
+     * the list must be rebuilt instead, because the change may move the entry in or out
+     * of the results.
+     */
+    public boolean updateRow(UiOutput ui, LangEntry entry) {
+        // Fuzzy search and the tree only look at keys, a value change never moves a row
+        boolean keysOnly = fuzzy || (browsing && searchQuery.isEmpty()) || compiledQuery.isMatchAll();
+        VisibleRow row = visibleRows.get(entry);
+        if (row == null) {
+            return keysOnly;
+        }
+        if (!keysOnly && !compiledQuery.matches(entry)) {
+            return false;
+        }
+        // The color of the row changes with the lint errors, only the text can be updated
+        if (row.error() != LintEngine.get().hasErrors(entry)) {
+            return false;
+        }
+        ui.set("#" + row.rowId() + "Label.Text", rowLabel(entry, row.name()));
+        return true;
+    }
+
+    private ResultCursor cursor() {
+        if (cursor == null) {
+            cursor = LangFileManager.get().cursor(compiledQuery);
+        }
+        return cursor;
+    }
+
+    /**
+     * Lists the current namespace: the parent link, the sub-namespaces with their entry
+     * and modified counts, then the entries of this level.
+     */
+    private void buildNamespaceList(UiOutput ui) {
+        LangFileManager manager = LangFileManager.get();
+        List<NamespaceRow> rows = new ArrayList<>();
+
+        if (!namespace.isEmpty()) {
+            int separator = namespace.lastIndexOf(NamespaceTrie.SEPARATOR);
+            String parent = separator < 0 ? "" : namespace.substring(0, separator);
+            rows.add(new NamespaceRow("..", "#808080", "OpenNamespace", parent, null, null));
+        }
+
+        List<NamespaceTrie.Child> children = manager.browseNamespace(namespace);
+        for (NamespaceTrie.Child child : children) {
+            if (child.hasChildren()) {
+                String dirty = child.dirty() > 0 ? " *" + child.dirty() : "";
+                rows.add(new NamespaceRow("> " + LangMarkup.escapeForUi(child.name()) + " (" + child.count() + ")" + dirty,
+                        child.dirty() > 0 ? "#ffd700" : "#60a5fa", "OpenNamespace", child.path(), null, null));
+            }
+        }
+        for (NamespaceTrie.Child child : children) {
+            for (LangEntry entry : child.entries()) {
+                String name = LangMarkup.escapeForUi(child.name());
+                rows.add(new NamespaceRow(rowLabel(entry, name), rowColor(entry), "EditEntry", entry.getKey(), entry, name));
+            }
+        }
+
+        int totalPages = (int) Math.ceil((double) rows.size() / ENTRIES_PER_PAGE);
+        if (currentPage >= totalPages && totalPages > 0) {
+            currentPage = totalPages - 1;
+        }
+        int startIndex = currentPage * ENTRIES_PER_PAGE;
+        int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, rows.size());
+
+        int count = manager.getNamespaceCount(namespace);
+        ui.set("#PageInfo.Text", "Page " + (currentPage + 1) + "/" + Math.max(1, totalPages));
+        ui.set("#ResultCount.Text", count + " entree" + (count > 1 ? "s" : ""));
+        ui.set("#PrevPageBtn.Disabled", currentPage == 0);
+        ui.set("#NextPageBtn.Disabled", currentPage >= totalPages - 1);
+
+        if (rows.isEmpty()) {
+            ui.set("#EntriesContainer.Visible", false);
+            ui.set("#NoResultsMessage.Visible", true);
+            return;
+        }
+
+        ui.set("#EntriesContainer.Visible", true);
+        ui.set("#NoResultsMessage.Visible", false);
+
+        int halfPoint = (endIndex - startIndex + 1) / 2;
+        for (int i = startIndex; i < endIndex; i++) {
+            NamespaceRow row = rows.get(i);
+            int localIndex = i - startIndex;
+            String rowId = "EntryRow" + i;
+            String bgColor = localIndex % 2 == 0 ? "#121a26" : "#151d28";
+            String columnId = localIndex < halfPoint ? "#LeftColumn" : "#RightColumn";
+
+            appendRow(ui, columnId, rowId, bgColor, row.label(), row.color());
+            ui.bindActivating("#" + rowId, row.eventKey(), row.eventValue());
+            if (row.entry() != null) {
+                visibleRows.put(row.entry(), new VisibleRow(rowId, row.name(), LintEngine.get().hasErrors(row.entry())));
+            }
+        }
+    }
+
+    /**
+     * Label of an entry row: "*" if modified, "!" if the lint found an error.
+     */
+    private static String rowLabel(LangEntry entry, String name) {
+        return (entry.isModified() ? "*" : "") + (LintEngine.get().hasErrors(entry) ? "! " : "") + name;
+    }
+
+    private static String rowColor(LangEntry entry) {
+        if (LintEngine.get().hasErrors(entry)) {
+            return "#f87171";
+        }
+        return entry.isModified() ? "#ffd700" : "#4ade80";
+    }
+
+    private static void appendRow(UiOutput ui, String columnId, String rowId, String bgColor, String label, String color) {
+        String rowUi = String.format(
+                "Button #%s { Anchor: (Height: 32, Bottom: 2); Background: (Color: %s); Padding: (Horizontal: 8, Vertical: 4); " +
+                "Label #%sLabel { Text: \"%s\"; Style: (FontSize: 12, TextColor: %s, HorizontalAlignment: Center, VerticalAlignment: Center); } }",
+                rowId, bgColor, rowId, label, color
+        );
+        ui.appendInline(columnId, rowUi);
+    }
+
+    private record NamespaceRow(String label, String color, String eventKey, String eventValue, LangEntry entry, String name) {}
+
+    private record VisibleRow(String rowId, String name, boolean error) {}
+
+    /**
+     * A result page as rendered: its UI commands, the page it ended on once clamped, its rows,
+     * and the lint results it shows.
+     */
+    private record RenderedPage(RecordedUi ui, int page, Map<LangEntry, VisibleRow> rows, long lintRevision) {}
+}
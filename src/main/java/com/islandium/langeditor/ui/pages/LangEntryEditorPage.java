@@ -1,8 +1,14 @@
 package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
+import com.islandium.langeditor.lint.LangLinter;
+import com.islandium.langeditor.lint.LintEngine;
+import com.islandium.langeditor.lint.LintIssue;
+import com.islandium.langeditor.lint.PlaceholderChecker;
 import com.islandium.langeditor.model.LangEntry;
+import com.islandium.langeditor.service.EditorStats;
 import com.islandium.langeditor.service.LangFileManager;
+import com.islandium.langeditor.service.TranslationMemory;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -11,6 +17,7 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
 import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
 import com.islandium.langeditor.util.ColorUtil;
+import com.islandium.langeditor.util.LangMarkup;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.ui.builder.EventData;
@@ -20,8 +27,10 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Page for editing or adding a language entry.
@@ -32,6 +41,9 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
     private final LangEntry existingEntry;
     private final boolean isNewEntry;
 
+    // Version de l'entree au moment de l'ouverture, pour detecter les modifications concurrentes
+    private long expectedVersion;
+
     private String currentKey;
     private String currentValue;
     private boolean codeMode = false; // false = apercu, true = code
@@ -41,6 +53,10 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
     private final java.util.Deque<String> valueHistory = new java.util.ArrayDeque<>();
     private String lastSavedValue = "";
 
+    // Suggestions de la memoire de traduction affichees
+    private static final int MAX_SUGGESTIONS = 4;
+    private List<TranslationMemory.Suggestion> suggestions = List.of();
+
     // Common color presets
     private static final String[] COLOR_PRESETS = {
             "#ffffff", "#4ade80", "#f87171", "#ffd700", "#60a5fa", "#c084fc", "#808080"
@@ -56,6 +72,7 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
             this.currentKey = entry.getKey();
             this.currentValue = entry.getValue();
             this.lastSavedValue = entry.getValue();
+            this.expectedVersion = entry.getVersion();
         } else {
             this.currentKey = "";
             this.currentValue = "";
@@ -65,6 +82,15 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+        } finally {
+            EditorStats.get().record("page.entry_editor.build", start);
+        }
+    }
+
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
         cmd.append("Pages/LangEditor/LangEntryEditorPage.ui");
 
         // Setup events
@@ -92,6 +118,7 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
         buildForm(cmd);
         buildColorPresets(cmd, event);
         buildPreview(cmd);
+        buildSuggestions(cmd, event);
         updateViewMode(cmd);
     }
 
@@ -151,81 +178,97 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
             lineUi.append("Group { LayoutMode: Left; Anchor: (Height: 24); ");
 
             // Parser et afficher les segments avec couleurs
-            parseLineWithColors(line, lineUi);
+            LangMarkup.appendPreviewLine(line, lineUi);
 
             lineUi.append(" }");
             cmd.appendInline("#PreviewContent", lineUi.toString());
         }
 
-        cmd.set("#ColorInfo.Visible", false);
+        buildDiagnostics(cmd);
     }
 
     /**
-     * Parse une ligne et extrait les segments colores
+     * Affiche sous l'apercu les problemes de la valeur en cours (balises, couleurs) et de la cle.
      */
-    private void parseLineWithColors(String text, StringBuilder ui) {
-        String defaultColor = "#e0e0e0";
-
-        // Pattern pour <color is="#HEX">contenu</color> (contenu peut contenir d'autres balises)
-        Pattern colorPattern = Pattern.compile("<color is=\"([^\"]+)\">([\\s\\S]*?)</color>");
-        Matcher matcher = colorPattern.matcher(text);
-
-        int lastEnd = 0;
-        boolean hasContent = false;
-
-        while (matcher.find()) {
-            // Texte avant cette balise color
-            if (matcher.start() > lastEnd) {
-                String before = text.substring(lastEnd, matcher.start());
-                before = stripFormattingTags(before);
-                if (!before.isEmpty()) {
-                    appendColoredLabel(ui, before, defaultColor);
-                    hasContent = true;
+    private void buildDiagnostics(UICommandBuilder cmd) {
+        List<LintIssue> issues = new ArrayList<>(LangLinter.lintValue(-1, currentKey, currentValue));
+
+        boolean keyChanged = isNewEntry || !currentKey.equals(existingEntry.getKey());
+        if (!currentKey.isEmpty() && keyChanged && LangFileManager.get().getEntry(currentKey).isPresent()) {
+            issues.add(new LintIssue(-1, currentKey, LintIssue.Severity.ERROR, "Cette cle existe deja"));
+        } else if (!keyChanged) {
+            // Doublons du fichier charge
+            for (LintIssue issue : LintEngine.get().getIssues(existingEntry)) {
+                if (issue.isError() && issue.message().startsWith("Cle dupliquee")) {
+                    issues.add(issue);
                 }
             }
+        }
 
-            // Texte colore (enlever les balises de formatage internes)
-            String color = matcher.group(1);
-            String content = stripFormattingTags(matcher.group(2));
-            if (!content.isEmpty()) {
-                appendColoredLabel(ui, content, color);
-                hasContent = true;
-            }
+        // Placeholders des autres langues du fichier
+        String path = LangFileManager.get().getCurrentFilePath();
+        if (path != null && !currentKey.isEmpty()) {
+            issues.addAll(PlaceholderChecker.get().checkValue(Path.of(path), currentKey, currentValue));
+        }
 
-            lastEnd = matcher.end();
+        if (issues.isEmpty()) {
+            cmd.set("#ColorInfo.Visible", false);
+            return;
         }
 
-        // Texte restant apres la derniere balise
-        if (lastEnd < text.length()) {
-            String remaining = text.substring(lastEnd);
-            remaining = stripFormattingTags(remaining);
-            if (!remaining.isEmpty()) {
-                appendColoredLabel(ui, remaining, defaultColor);
-                hasContent = true;
+        StringBuilder text = new StringBuilder();
+        boolean error = false;
+        for (int i = 0; i < issues.size() && i < 2; i++) {
+            if (i > 0) {
+                text.append("  |  ");
             }
+            text.append(issues.get(i).message());
         }
-
-        // Si ligne vide, ajouter un espace
-        if (!hasContent) {
-            appendColoredLabel(ui, " ", defaultColor);
+        for (LintIssue issue : issues) {
+            error |= issue.isError();
+        }
+        if (issues.size() > 2) {
+            text.append("  (+").append(issues.size() - 2).append(")");
         }
+        cmd.set("#ColorInfo.Text", text.toString());
+        cmd.set("#ColorInfo.Style.TextColor", error ? "#f87171" : "#ffd700");
+        cmd.set("#ColorInfo.Visible", true);
     }
 
-    private String stripFormattingTags(String text) {
-        return text
-                .replaceAll("<b>", "")
-                .replaceAll("</b>", "")
-                .replaceAll("<i>", "")
-                .replaceAll("</i>", "")
-                .replaceAll("<color[^>]*>", "")
-                .replaceAll("</color>", "");
+    /**
+     * Affiche les valeurs existantes les plus proches de la valeur en cours, avec leurs
+     * traductions dans les autres langues. Un clic remplace la valeur.
+     */
+    private void buildSuggestions(UICommandBuilder cmd, UIEventBuilder event) {
+        String file = LangFileManager.get().getCurrentFilePath();
+        suggestions = TranslationMemory.get().suggest(currentValue, file,
+                isNewEntry ? null : existingEntry.getKey(), MAX_SUGGESTIONS);
+
+        cmd.clear("#SuggestionsList");
+        cmd.set("#SuggestionsArea.Visible", !suggestions.isEmpty());
+
+        for (int i = 0; i < suggestions.size(); i++) {
+            TranslationMemory.Suggestion suggestion = suggestions.get(i);
+            StringBuilder text = new StringBuilder();
+            text.append(Math.round(suggestion.similarity() * 100)).append("% ")
+                    .append(truncate(suggestion.value(), 50));
+            for (Map.Entry<String, String> translation : suggestion.translations().entrySet()) {
+                text.append("  |  ").append(translation.getKey()).append(": ").append(truncate(translation.getValue(), 30));
+            }
+
+            String rowId = "Suggestion" + i;
+            cmd.appendInline("#SuggestionsList", String.format(
+                    "Button #%s { Anchor: (Height: 26, Bottom: 2); Background: (Color: #121a26); Padding: (Horizontal: 8); " +
+                    "Label { Text: \"%s\"; Style: (FontSize: 11, TextColor: #c0c0c0, VerticalAlignment: Center); } }",
+                    rowId, LangMarkup.escapeForUi(text.toString())));
+            event.addEventBinding(CustomUIEventBindingType.Activating, "#" + rowId,
+                    EventData.of("UseSuggestion", String.valueOf(i)), false);
+        }
     }
 
-    private void appendColoredLabel(StringBuilder ui, String text, String color) {
-        ui.append(String.format(
-                "Label { Text: \"%s\"; Style: (FontSize: 14, TextColor: %s); } ",
-                escapeForUi(text), color
-        ));
+    private static String truncate(String value, int max) {
+        String plain = value.replaceAll("<[^>]+>", "").replace("\\n", " ");
+        return plain.length() > max ? plain.substring(0, max - 3) + "..." : plain;
     }
 
     private void updateViewMode(UICommandBuilder cmd) {
@@ -243,14 +286,6 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
         }
     }
 
-    private String escapeForUi(String text) {
-        return text
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", " ")
-                .replace("\r", "");
-    }
-
     /**
      * Sauvegarde l'etat actuel dans l'historique pour permettre l'annulation
      */
@@ -276,43 +311,17 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
         return true;
     }
 
-    /**
-     * Nettoie les balises mal formatees:
-     * - Supprime les retours a la ligne juste avant </color>, </b>, </i>
-     * - Supprime les retours a la ligne juste apres <color...>, <b>, <i>
-     * - Supprime les espaces multiples
-     */
-    private String cleanTags(String value) {
-        String result = value;
-
-        // Supprimer \n juste avant les balises fermantes
-        result = result.replaceAll("\\\\n\\s*</color>", "</color>");
-        result = result.replaceAll("\\\\n\\s*</b>", "</b>");
-        result = result.replaceAll("\\\\n\\s*</i>", "</i>");
-
-        // Supprimer \n juste apres les balises ouvrantes
-        result = result.replaceAll("<color([^>]*)>\\s*\\\\n", "<color$1>");
-        result = result.replaceAll("<b>\\s*\\\\n", "<b>");
-        result = result.replaceAll("<i>\\s*\\\\n", "<i>");
-
-        // Supprimer les espaces multiples avant/apres les balises
-        result = result.replaceAll("\\s+</color>", "</color>");
-        result = result.replaceAll("\\s+</b>", "</b>");
-        result = result.replaceAll("\\s+</i>", "</i>");
-        result = result.replaceAll("<color([^>]*)>\\s+", "<color$1>");
-        result = result.replaceAll("<b>\\s+", "<b>");
-        result = result.replaceAll("<i>\\s+", "<i>");
-
-        // Supprimer les balises color vides
-        result = result.replaceAll("<color[^>]*></color>", "");
-        result = result.replaceAll("<b></b>", "");
-        result = result.replaceAll("<i></i>", "");
-
-        return result;
-    }
-
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.entry_editor.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
@@ -324,11 +333,27 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
         // Update current values from input
         if (data.key != null) {
             currentKey = data.key;
+            buildDiagnostics(cmd);
         }
         if (data.value != null) {
             // Convertir les vrais retours a la ligne en \n pour le stockage
             currentValue = toStorageFormat(data.value);
             buildPreview(cmd);
+            buildSuggestions(cmd, event);
+            sendUpdate(cmd, event, false);
+            return;
+        }
+
+        // Reprendre une suggestion de la memoire de traduction
+        if (data.useSuggestion != null) {
+            int index = Integer.parseInt(data.useSuggestion);
+            if (index >= 0 && index < suggestions.size()) {
+                pushToHistory();
+                currentValue = suggestions.get(index).value();
+                cmd.set("#ValueField.Value", toDisplayFormat(currentValue));
+                buildPreview(cmd);
+                buildSuggestions(cmd, event);
+            }
             sendUpdate(cmd, event, false);
             return;
         }
@@ -366,14 +391,22 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
                             player.sendMessage(ColorUtil.parse("&cCette cle existe deja!"));
                         }
                     } else {
-                        String originalKey = existingEntry.getKey();
-                        if (LangFileManager.get().updateEntry(originalKey, currentKey, currentValue)) {
-                            player.sendMessage(ColorUtil.parse("&aEntree modifiee: " + currentKey));
-                            player.getPageManager().openCustomPage(ref, store,
-                                    new LangEditorMainPage(playerRef, plugin)
-                            );
-                        } else {
-                            player.sendMessage(ColorUtil.parse("&cErreur lors de la modification!"));
+                        switch (LangFileManager.get().compareAndUpdate(existingEntry, expectedVersion, currentKey, currentValue)) {
+                            case UPDATED -> {
+                                player.sendMessage(ColorUtil.parse("&aEntree modifiee: " + currentKey));
+                                player.getPageManager().openCustomPage(ref, store,
+                                        new LangEditorMainPage(playerRef, plugin)
+                                );
+                            }
+                            case CONFLICT -> {
+                                // Un second clic sur Sauvegarder ecrase la version de l'autre editeur
+                                expectedVersion = existingEntry.getVersion();
+                                player.sendMessage(ColorUtil.parse("&cCette entree a ete modifiee par un autre editeur!"));
+                                player.sendMessage(ColorUtil.parse("&7Valeur actuelle: &f" + existingEntry.getValue()));
+                                player.sendMessage(ColorUtil.parse("&7Sauvegardez a nouveau pour l'ecraser, ou annulez."));
+                            }
+                            case NOT_FOUND -> player.sendMessage(ColorUtil.parse("&cCette entree n'existe plus (supprimee ou fichier recharge)!"));
+                            case KEY_TAKEN -> player.sendMessage(ColorUtil.parse("&cCette cle existe deja!"));
                         }
                     }
                     return;
@@ -437,7 +470,7 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
                     // Sauvegarder avant modification
                     pushToHistory();
                     // Nettoyer les balises mal formatees
-                    currentValue = cleanTags(currentValue);
+                    currentValue = LangMarkup.cleanTags(currentValue);
                     cmd.set("#ValueField.Value", toDisplayFormat(currentValue));
                     buildPreview(cmd);
                     player.sendMessage(ColorUtil.parse("&aBalises nettoyees!"));
@@ -474,11 +507,13 @@ public class LangEntryEditorPage extends InteractiveCustomUIPage<LangEntryEditor
                 .addField(new KeyedCodec<>("@Key", Codec.STRING), (d, v) -> d.key = v, d -> d.key)
                 .addField(new KeyedCodec<>("@Value", Codec.STRING), (d, v) -> d.value = v, d -> d.value)
                 .addField(new KeyedCodec<>("InsertColor", Codec.STRING), (d, v) -> d.insertColor = v, d -> d.insertColor)
+                .addField(new KeyedCodec<>("UseSuggestion", Codec.STRING), (d, v) -> d.useSuggestion = v, d -> d.useSuggestion)
                 .build();
 
         public String action;
         public String key;
         public String value;
         public String insertColor;
+        public String useSuggestion;
     }
 }
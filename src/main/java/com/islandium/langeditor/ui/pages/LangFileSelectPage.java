@@ -1,6 +1,7 @@
 package com.islandium.langeditor.ui.pages;
 
 import com.islandium.langeditor.LangEditorPlugin;
+import com.islandium.langeditor.service.EditorStats;
 import com.islandium.langeditor.service.LangFileManager;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
@@ -87,6 +88,15 @@ public class LangFileSelectPage extends InteractiveCustomUIPage<LangFileSelectPa
 
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder event, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        try {
+            buildPage(cmd, event);
+        } finally {
+            EditorStats.get().record("page.file_select.build", start);
+        }
+    }
+
+    private void buildPage(UICommandBuilder cmd, UIEventBuilder event) {
         cmd.append("Pages/LangEditor/LangFileSelectPage.ui");
 
         // Setup events
@@ -162,6 +172,15 @@ public class LangFileSelectPage extends InteractiveCustomUIPage<LangFileSelectPa
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull PageData data) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(ref, store, data);
+        } finally {
+            EditorStats.get().record("page.file_select.event", start);
+        }
+    }
+
+    private void handleEvent(Ref<EntityStore> ref, Store<EntityStore> store, PageData data) {
         super.handleDataEvent(ref, store, data);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
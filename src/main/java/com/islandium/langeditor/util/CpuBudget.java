@@ -0,0 +1,68 @@
+package com.islandium.langeditor.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps background work under a share of one core, and lets it be cancelled.
+ *
+ * Callers time their units of work with {@link #charge}; {@link #pace()}, called before each
+ * unit, sleeps while the work done is ahead of the share of the time elapsed since the budget
+ * was created. Threads sharing a budget add up their work.
+ */
+public final class CpuBudget {
+
+    // Longest sleep, so that a cancellation is seen quickly
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double share;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile boolean cancelled;
+
+    /**
+     * @param share part of one core the work may use, from 0.01 to 1
+     */
+    public CpuBudget(double share) {
+        this.share = Math.min(1.0, Math.max(0.01, share));
+    }
+
+    /**
+     * Waits until the work is back within the budget. Returns false, without waiting, once
+     * cancelled or interrupted.
+     */
+    public boolean pace() {
+        while (!cancelled) {
+            long ahead = (long) (busyNanos.get() / share) - (System.nanoTime() - startNanos);
+            if (ahead <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(ahead, MAX_SLEEP_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the work done since {@code workStartNanos} ({@link System#nanoTime()}).
+     */
+    public void charge(long workStartNanos) {
+        busyNanos.addAndGet(System.nanoTime() - workStartNanos);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+}
@@ -0,0 +1,126 @@
+package com.islandium.langeditor.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utilitaires pour les balises des valeurs .lang (<color is="#HEX">, <b>, <i>).
+ */
+public final class LangMarkup {
+
+    public static final String DEFAULT_PREVIEW_COLOR = "#e0e0e0";
+
+    private LangMarkup() {}
+
+    /**
+     * Nettoie les balises mal formatees:
+     * - Supprime les retours a la ligne juste avant </color>, </b>, </i>
+     * - Supprime les retours a la ligne juste apres <color...>, <b>, <i>
+     * - Supprime les espaces multiples
+     */
+    public static String cleanTags(String value) {
+        String result = value;
+
+        // Supprimer \n juste avant les balises fermantes
+        result = result.replaceAll("\\\\n\\s*</color>", "</color>");
+        result = result.replaceAll("\\\\n\\s*</b>", "</b>");
+        result = result.replaceAll("\\\\n\\s*</i>", "</i>");
+
+        // Supprimer \n juste apres les balises ouvrantes
+        result = result.replaceAll("<color([^>]*)>\\s*\\\\n", "<color$1>");
+        result = result.replaceAll("<b>\\s*\\\\n", "<b>");
+        result = result.replaceAll("<i>\\s*\\\\n", "<i>");
+
+        // Supprimer les espaces multiples avant/apres les balises
+        result = result.replaceAll("\\s+</color>", "</color>");
+        result = result.replaceAll("\\s+</b>", "</b>");
+        result = result.replaceAll("\\s+</i>", "</i>");
+        result = result.replaceAll("<color([^>]*)>\\s+", "<color$1>");
+        result = result.replaceAll("<b>\\s+", "<b>");
+        result = result.replaceAll("<i>\\s+", "<i>");
+
+        // Supprimer les balises color vides
+        result = result.replaceAll("<color[^>]*></color>", "");
+        result = result.replaceAll("<b></b>", "");
+        result = result.replaceAll("<i></i>", "");
+
+        return result;
+    }
+
+    /**
+     * Parse une ligne et ajoute un Label par segment colore
+     */
+    public static void appendPreviewLine(String text, StringBuilder ui) {
+        // Pattern pour <color is="#HEX">contenu</color> (contenu peut contenir d'autres balises)
+        Pattern colorPattern = Pattern.compile("<color is=\"([^\"]+)\">([\\s\\S]*?)</color>");
+        Matcher matcher = colorPattern.matcher(text);
+
+        int lastEnd = 0;
+        boolean hasContent = false;
+
+        while (matcher.find()) {
+            // Texte avant cette balise color
+            if (matcher.start() > lastEnd) {
+                String before = text.substring(lastEnd, matcher.start());
+                before = stripFormattingTags(before);
+                if (!before.isEmpty()) {
+                    appendColoredLabel(ui, before, DEFAULT_PREVIEW_COLOR);
+                    hasContent = true;
+                }
+            }
+
+            // Texte colore (enlever les balises de formatage internes)
+            String color = matcher.group(1);
+            String content = stripFormattingTags(matcher.group(2));
+            if (!content.isEmpty()) {
+                appendColoredLabel(ui, content, color);
+                hasContent = true;
+            }
+
+            lastEnd = matcher.end();
+        }
+
+        // Texte restant apres la derniere balise
+        if (lastEnd < text.length()) {
+            String remaining = text.substring(lastEnd);
+            remaining = stripFormattingTags(remaining);
+            if (!remaining.isEmpty()) {
+                appendColoredLabel(ui, remaining, DEFAULT_PREVIEW_COLOR);
+                hasContent = true;
+            }
+        }
+
+        // Si ligne vide, ajouter un espace
+        if (!hasContent) {
+            appendColoredLabel(ui, " ", DEFAULT_PREVIEW_COLOR);
+        }
+    }
+
+    public static String stripFormattingTags(String text) {
+        return text
+                .replaceAll("<b>", "")
+                .replaceAll("</b>", "")
+                .replaceAll("<i>", "")
+                .replaceAll("</i>", "")
+                .replaceAll("<color[^>]*>", "")
+                .replaceAll("</color>", "");
+    }
+
+    private static void appendColoredLabel(StringBuilder ui, String text, String color) {
+        ui.append(String.format(
+                "Label { Text: \"%s\"; Style: (FontSize: 14, TextColor: %s); } ",
+                escapeForUi(text), color
+        ));
+    }
+
+    /**
+     * Echappe un texte pour l'inserer dans une chaine d'un fichier .ui
+     */
+    public static String escapeForUi(String text) {
+        return text
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", " ")
+                .replace("\r", "");
+    }
+}
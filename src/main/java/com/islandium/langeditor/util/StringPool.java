@@ -0,0 +1,101 @@
+package com.islandium.langeditor.util;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Weak interning pool for the keys and values read from .lang files.
+ *
+ * The same key names and short values ("Yes", "Cancel"...) appear in every locale
+ * of every mod. Interning them when a file is loaded makes identical strings share
+ * one instance across all loaded documents. The pool only holds weak references,
+ * so a string disappears from it once no document uses it anymore.
+ */
+public final class StringPool {
+
+    /** Values longer than this are rarely repeated and are not pooled. */
+    public static final int MAX_VALUE_LENGTH = 64;
+
+    // Approximate size of a String object and its byte[] header on a 64-bit JVM
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    private static final StringPool INSTANCE = new StringPool();
+
+    private final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<>();
+    private long lookups;
+    private long hits;
+    private long savedBytes;
+
+    public static StringPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given string, adding it if absent.
+     */
+    public synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        lookups++;
+        WeakReference<String> ref = pool.get(value);
+        String pooled = ref != null ? ref.get() : null;
+        if (pooled != null) {
+            if (pooled != value) {
+                hits++;
+                savedBytes += STRING_OVERHEAD + value.length();
+            }
+            return pooled;
+        }
+
+        pool.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    /**
+     * Interns a key. Keys repeat across locales and are always pooled.
+     */
+    public String internKey(String key) {
+        return intern(key);
+    }
+
+    /**
+     * Interns a value if it is short enough to be worth pooling.
+     */
+    public String internValue(String value) {
+        if (value == null || value.length() > MAX_VALUE_LENGTH) {
+            return value;
+        }
+        return intern(value);
+    }
+
+    /**
+     * Gets the number of distinct strings currently pooled.
+     */
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets an estimate of the heap saved by returning pooled instances (Latin-1 strings).
+     */
+    public synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+
+    public synchronized void clear() {
+        pool.clear();
+        lookups = 0;
+        hits = 0;
+        savedBytes = 0;
+    }
+}